@@ -0,0 +1,39 @@
+/**
+ * Distance matrix that reads an existing int[][] without copying it. This is what the
+ * int[][] constructors of the solvers use, so older callers keep their memory layout.
+ */
+public class ArrayDistanceMatrix implements DistanceMatrix {
+    private final int[][] prices;
+    // 0 = not checked yet, 1 = symmetric, 2 = asymmetric; checked on first use since it costs O(n^2)
+    private volatile int symmetry = 0;
+
+    public ArrayDistanceMatrix(int[][] prices) {
+        if (prices.length == 0 || prices.length != prices[0].length)
+            throw new IllegalArgumentException("Matrix must be square (n x n)");
+        this.prices = prices;
+    }
+
+    @Override
+    public int size() {
+        return prices.length;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return prices[from][to];
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        if (symmetry == 0) symmetry = DistanceMatrix.isSymmetric(prices.length, this::get) ? 1 : 2;
+        return symmetry == 1;
+    }
+
+    // Returns a copy, the wrapped array stays owned by the caller.
+    @Override
+    public int[][] toArray() {
+        int[][] copy = new int[prices.length][];
+        for (int i = 0; i < prices.length; i++) copy[i] = prices[i].clone();
+        return copy;
+    }
+}
@@ -0,0 +1,154 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves many independent instances concurrently with one TspSolver. The solver runs
+ * on a fixed pool of CPU workers, so thousands of submitted instances queue up instead
+ * of oversubscribing the cores. Instances that first have to be loaded, e.g. read with
+ * TsplibReader, are loaded on virtual threads when the JVM has them (Java 21 and later),
+ * so waiting for I/O takes no CPU worker; on older JVMs they are loaded by the CPU workers.
+ * The solver should be configured with parallelism 1, the batch itself fills the cores.
+ */
+public class BatchSolver implements AutoCloseable {
+    private final TspSolver solver;
+    private final ExecutorService cpuWorkers;
+    // Null when the JVM has no virtual threads
+    private final ExecutorService virtualThreads;
+
+    /**
+     * One CPU worker per available processor
+     * @param solver TspSolver used for every instance
+     */
+    public BatchSolver(TspSolver solver) {
+        this(solver, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param solver TspSolver used for every instance
+     * @param cpuWorkers int number of instances solved at the same time
+     */
+    public BatchSolver(TspSolver solver, int cpuWorkers) {
+        if (cpuWorkers < 1) throw new IllegalArgumentException("At least one CPU worker is needed.");
+        this.solver = solver;
+        this.cpuWorkers = Executors.newFixedThreadPool(cpuWorkers, daemonThreads());
+        this.virtualThreads = virtualThreadPerTaskExecutor();
+    }
+
+    // Daemon threads, so a batch that is never closed does not keep the JVM alive.
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "tsp-batch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() through reflection, so the class still compiles and runs on Java 17.
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // Java 19 and 20 have the method, but refuse it unless preview features are enabled
+            if (e.getCause() instanceof UnsupportedOperationException) return null;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Returns true if instances are loaded on virtual threads.
+    public boolean usesVirtualThreads() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Queues one instance
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return CompletableFuture completed with the solution once a CPU worker has solved it
+     */
+    public CompletableFuture<TspSolution> submit(DistanceMatrix travelPrices, int startingCity) {
+        return solver.solveAsync(travelPrices, startingCity, cpuWorkers);
+    }
+
+    /**
+     * Queues one instance that has to be loaded first. The loader runs on a virtual
+     * thread if possible, the solver on a CPU worker
+     * @param instance Callable that loads the graph
+     * @param startingCity int starting node
+     * @return CompletableFuture completed with the solution, or exceptionally if loading or solving failed
+     */
+    public CompletableFuture<TspSolution> submit(Callable<DistanceMatrix> instance, int startingCity) {
+        if (virtualThreads == null) {
+            // Load and solve in one go on the same CPU worker
+            return CompletableFuture.supplyAsync(() -> solver.solve(load(instance), startingCity), cpuWorkers);
+        }
+        return CompletableFuture.supplyAsync(() -> load(instance), virtualThreads)
+                .thenApplyAsync(travelPrices -> solver.solve(travelPrices, startingCity), cpuWorkers);
+    }
+
+    private static DistanceMatrix load(Callable<DistanceMatrix> instance) {
+        try {
+            return instance.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Solves every instance and waits for all of them
+     * @param instances List of graphs
+     * @param startingCity int starting node of every instance
+     * @return List of solutions in the order of the instances
+     */
+    public List<TspSolution> solveAll(List<DistanceMatrix> instances, int startingCity) {
+        List<CompletableFuture<TspSolution>> pending = new ArrayList<>(instances.size());
+        for (DistanceMatrix instance : instances) pending.add(submit(instance, startingCity));
+        List<TspSolution> solutions = new ArrayList<>(pending.size());
+        try {
+            for (CompletableFuture<TspSolution> solution : pending) solutions.add(solution.get());
+        } catch (InterruptedException e) {
+            for (CompletableFuture<TspSolution> solution : pending) solution.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the batch was running.", e);
+        } catch (ExecutionException e) {
+            for (CompletableFuture<TspSolution> solution : pending) solution.cancel(false);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        return solutions;
+    }
+
+    /**
+     * Stops accepting instances. Instances already queued are still solved; this
+     * method waits only for those still being loaded, which need a CPU worker afterwards
+     */
+    @Override
+    public void close() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+            try {
+                while (!virtualThreads.awaitTermination(1, TimeUnit.MINUTES)) {
+                    // Keep waiting, a loader may block on slow I/O
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        cpuWorkers.shutdown();
+    }
+}
@@ -0,0 +1,545 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class BranchAndBoundApproach {
+    // Prefixes shorter than this many cities are explored as separate fork/join tasks
+    private static final int SPLIT_DEPTH = 3;
+    // Slack for the floating point bound when comparing against integer tour costs
+    private static final double EPSILON = 1e-6;
+    // Randomized nearest neighbour tours tried for the first upper bound
+    private static final int CONSTRUCTION_TRIES = 16;
+    // Time given to Lin-Kernighan per city to improve the first upper bound of a symmetric instance
+    private static final long POLISH_MILLIS_PER_CITY = 5;
+    // Subgradient steps per search node, warm-started from the penalties of the parent node
+    private static final int NODE_ITERATIONS = 5;
+
+    private final int N, start;
+    private final int parallelism;
+    private final int[][] distance;
+    private final List<Integer> tour = new ArrayList<>();
+    private int minTourCost = Integer.MAX_VALUE;
+    private boolean ranSolver = false;
+
+    // Held-Karp penalties of the root, and the symmetric edge weights the bounds use:
+    // min(d[i][j], d[j][i]), infinite for edges fixed out by their reduced cost
+    private double[] pi;
+    private double[] weight;
+    // Search scratch space, one per worker thread
+    private ThreadLocal<Search> searches;
+    // Best complete tour found so far, shared by every search task
+    private final AtomicInteger bestCost = new AtomicInteger(Integer.MAX_VALUE);
+    private int[] bestTour;
+
+    public BranchAndBoundApproach(int start, int[][] distance) {
+        this(start, distance, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Depth-first branch-and-bound solver. Every partial path is bounded with a
+     * Held-Karp 1-tree over the cities that are still unvisited, whose penalties are
+     * tightened at every node, so only the current path of each worker is kept in memory.
+     * @param start int starting node
+     * @param distance int[][] graph
+     * @param parallelism int number of worker threads
+     */
+    public BranchAndBoundApproach(int start, int[][] distance, int parallelism) {
+        N = distance.length;
+
+        if (N <= 2) throw new IllegalStateException("N <= 2 not yet supported.");
+        if (N != distance[0].length) throw new IllegalStateException("Matrix must be square (n x n)");
+        if (start < 0 || start >= N) throw new IllegalArgumentException("Invalid start node.");
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1.");
+
+        this.start = start;
+        this.distance = distance;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Seeds the search with a known tour, for example from the genetic algorithm.
+     * Its cost becomes the first upper bound, so a good seed prunes most of the tree.
+     * If no seed is given, the cheapest TourConstruction tour is used, improved by
+     * a short Lin-Kernighan run when the travel prices are symmetric.
+     * @param seed List closed tour from start back to start
+     */
+    public void setInitialTour(List<Integer> seed) {
+        if (seed.size() != N + 1 || seed.get(0) != start || seed.get(N) != start)
+            throw new IllegalArgumentException("Seed must be a closed tour starting at node " + start + ".");
+        int[] candidate = new int[N];
+        boolean[] seen = new boolean[N];
+        for (int i = 0; i < N; i++) {
+            candidate[i] = seed.get(i);
+            if (seen[candidate[i]]) throw new IllegalArgumentException("Seed visits node " + candidate[i] + " twice.");
+            seen[candidate[i]] = true;
+        }
+        offer(candidate, tourCost(candidate));
+    }
+
+    /**
+     * Seeds the search with the path of a genome, e.g. the result of Ubermensch.optimize()
+     * @param genome SalesmanGenome tour starting at the same node
+     */
+    public void setInitialTour(SalesmanGenome genome) {
+        List<Integer> seed = new ArrayList<>();
+        seed.add(start);
+        seed.addAll(genome.getGenome());
+        seed.add(start);
+        setInitialTour(seed);
+    }
+
+    // Returns the optimal tour for the traveling salesman problem.
+    public List<Integer> getTour() {
+        if (!ranSolver) solve();
+        return tour;
+    }
+
+    // Returns the minimal tour cost.
+    public int getTourCost() {
+        if (!ranSolver) solve();
+        return minTourCost;
+    }
+
+    // Solves the traveling salesman problem and caches solution.
+    public void solve() {
+        if (ranSolver) return;
+        if (bestTour == null) {
+            int[] constructed = new TourConstruction(distance).best(start, CONSTRUCTION_TRIES, 0, parallelism);
+            offer(constructed, tourCost(constructed));
+            // The closer the incumbent is to the optimum the less of the tree has to be searched
+            DistanceMatrix matrix = DistanceMatrix.wrap(distance);
+            if (N > 4 && matrix.isSymmetric()) {
+                LinKernighanSolver polish = new LinKernighanSolver(start, matrix);
+                List<Integer> seed = new ArrayList<>();
+                for (int city : constructed) seed.add(city);
+                seed.add(start);
+                polish.setInitialTour(seed);
+                polish.setTimeLimit(POLISH_MILLIS_PER_CITY * N);
+                polish.solve();
+                setInitialTour(polish.getTour());
+            }
+        }
+        computePenalties();
+        fixEdges();
+
+        int[] path = new int[N];
+        boolean[] visited = new boolean[N];
+        path[0] = start;
+        visited[start] = true;
+        searches = ThreadLocal.withInitial(Search::new);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SearchTask(path, visited, 1, 0));
+        } finally {
+            pool.shutdown();
+            searches = null;
+        }
+
+        minTourCost = bestCost.get();
+        for (int city : bestTour) tour.add(city);
+        tour.add(start);
+        ranSolver = true;
+    }
+
+    /**
+     * Explores the subtree below one prefix. Short prefixes fork one task per
+     * child, longer ones are searched depth-first on the worker's own arrays.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] path;
+        private final boolean[] visited;
+        private final int depth, cost;
+
+        SearchTask(int[] path, boolean[] visited, int depth, int cost) {
+            this.path = path;
+            this.visited = visited;
+            this.depth = depth;
+            this.cost = cost;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth >= SPLIT_DEPTH || depth == N) {
+                searches.get().run(path, visited, depth, cost);
+                return;
+            }
+            int last = path[depth - 1];
+            int[] children = orderedChildren(last, visited);
+            List<SearchTask> tasks = new ArrayList<>();
+            for (int next : children) {
+                if (weight[last * N + next] == Double.POSITIVE_INFINITY) continue;
+                int[] childPath = path.clone();
+                boolean[] childVisited = visited.clone();
+                childPath[depth] = next;
+                childVisited[next] = true;
+                tasks.add(new SearchTask(childPath, childVisited, depth + 1, cost + distance[last][next]));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Sequential depth-first search with scratch arrays owned by one worker,
+     * so nothing is allocated while the tree is explored.
+     */
+    private final class Search {
+        private final int[] path = new int[N];
+        private final boolean[] visited = new boolean[N];
+        private final int[] unvisited = new int[N];
+        private final double[] key = new double[N];
+        private final int[] parent = new int[N];
+        private final int[] degree = new int[N];
+        private final boolean[] inTree = new boolean[N];
+        private final int[][] children = new int[N][N];
+        // Penalties of the node at every depth, each node starts from those of its parent
+        private final double[][] penalties = new double[N + 1][N];
+
+        // Searches the subtree below a prefix built by a SearchTask.
+        void run(int[] prefix, boolean[] prefixVisited, int depth, int cost) {
+            System.arraycopy(prefix, 0, path, 0, N);
+            System.arraycopy(prefixVisited, 0, visited, 0, N);
+            System.arraycopy(pi, 0, penalties[depth - 1], 0, N);
+            search(depth, cost);
+        }
+
+        void search(int depth, int cost) {
+            int last = path[depth - 1];
+            if (depth == N) {
+                int total = cost + distance[last][start];
+                if (total < bestCost.get()) offer(path.clone(), total);
+                return;
+            }
+            System.arraycopy(penalties[depth - 1], 0, penalties[depth], 0, N);
+            if (cost + lowerBound(depth, last, bestCost.get() - 1 + EPSILON - cost) > bestCost.get() - 1 + EPSILON) return;
+
+            // Try the cheapest extensions first so good tours are found early
+            int[] order = children[depth];
+            int count = 0;
+            for (int v = 0; v < N; v++) {
+                if (visited[v] || weight[last * N + v] == Double.POSITIVE_INFINITY) continue;
+                int i = count++;
+                while (i > 0 && distance[last][order[i - 1]] > distance[last][v]) {
+                    order[i] = order[i - 1];
+                    i--;
+                }
+                order[i] = v;
+            }
+            for (int i = 0; i < count; i++) {
+                int next = order[i];
+                int newCost = cost + distance[last][next];
+                if (newCost >= bestCost.get()) continue;
+                path[depth] = next;
+                visited[next] = true;
+                search(depth + 1, newCost);
+                visited[next] = false;
+            }
+        }
+
+        /**
+         * Lower bound on the cost of finishing the tour from 'last'. The rest of the
+         * tour is a path through the unvisited cities, so it costs at least a
+         * minimum spanning tree over them plus the cheapest edge out of 'last'
+         * and the cheapest edge into the start, all under Held-Karp penalties.
+         * A few subgradient steps adjust the penalties of this node, starting from
+         * those of its parent, so the bound stays tight deep in the tree
+         * @param depth int number of cities on the path, selects the node's penalties
+         * @param last int city the partial path ends at
+         * @param budget double bound above which the node is pruned anyway
+         * @return double lower bound
+         */
+        private double lowerBound(int depth, int last, double budget) {
+            int k = 0;
+            for (int v = 0; v < N; v++) {
+                if (!visited[v]) unvisited[k++] = v;
+            }
+            if (k == 1) {
+                int only = unvisited[0];
+                return distance[last][only] + distance[only][start];
+            }
+            double[] penalty = penalties[depth];
+            double best = Double.NEGATIVE_INFINITY;
+            double step = 1.0;
+            for (int iteration = 0; iteration < NODE_ITERATIONS; iteration++) {
+                double bound = relaxation(last, k, penalty);
+                if (bound > best) best = bound;
+                if (best > budget) break;
+                int norm = 0;
+                for (int i = 0; i < k; i++) norm += (degree[i] - 2) * (degree[i] - 2);
+                // Every city has degree two, so the relaxation is itself the cheapest completion
+                if (norm == 0) break;
+                double t = step * (budget - bound) / norm;
+                for (int i = 0; i < k; i++) penalty[unvisited[i]] += t * (degree[i] - 2);
+                step /= 2;
+            }
+            return best;
+        }
+
+        // One evaluation of the bound for the given penalties, leaves the degrees in 'degree'.
+        private double relaxation(int last, int k, double[] penalty) {
+            double leave = Double.POSITIVE_INFINITY, enter = Double.POSITIVE_INFINITY;
+            int leaveTo = -1, enterFrom = -1;
+            double penaltySum = 0;
+            for (int i = 0; i < k; i++) {
+                int v = unvisited[i];
+                penaltySum += penalty[v];
+                if (weight[last * N + v] != Double.POSITIVE_INFINITY && distance[last][v] + penalty[v] < leave) {
+                    leave = distance[last][v] + penalty[v];
+                    leaveTo = i;
+                }
+                if (weight[v * N + start] != Double.POSITIVE_INFINITY && distance[v][start] + penalty[v] < enter) {
+                    enter = distance[v][start] + penalty[v];
+                    enterFrom = i;
+                }
+                key[i] = Double.POSITIVE_INFINITY;
+                parent[i] = -1;
+                degree[i] = 0;
+                inTree[i] = false;
+            }
+            if (leaveTo < 0 || enterFrom < 0) return Double.POSITIVE_INFINITY;
+            degree[leaveTo]++;
+            degree[enterFrom]++;
+            // Prim's algorithm on the penalised weights of the unvisited cities
+            double tree = 0;
+            key[0] = 0;
+            for (int added = 0; added < k; added++) {
+                int u = -1;
+                for (int i = 0; i < k; i++) {
+                    if (!inTree[i] && (u == -1 || key[i] < key[u])) u = i;
+                }
+                if (key[u] == Double.POSITIVE_INFINITY) return Double.POSITIVE_INFINITY;
+                inTree[u] = true;
+                tree += key[u];
+                if (parent[u] >= 0) {
+                    degree[u]++;
+                    degree[parent[u]]++;
+                }
+                int row = unvisited[u] * N;
+                double penaltyU = penalty[unvisited[u]];
+                for (int i = 0; i < k; i++) {
+                    if (inTree[i]) continue;
+                    double w = weight[row + unvisited[i]] + penaltyU + penalty[unvisited[i]];
+                    if (w < key[i]) {
+                        key[i] = w;
+                        parent[i] = u;
+                    }
+                }
+            }
+            return tree + leave + enter - 2 * penaltySum;
+        }
+    }
+
+    /**
+     * Subgradient optimisation of the Held-Karp 1-tree bound at the root.
+     * The penalties that gave the best bound are where the search nodes start from.
+     */
+    private void computePenalties() {
+        double[] current = new double[N];
+        pi = new double[N];
+        double bestBound = Double.NEGATIVE_INFINITY;
+        int[] degree = new int[N];
+        double step = 2.0;
+        int sinceImprovement = 0;
+        int maxIterations = 50 * N;
+
+        for (int iteration = 0; iteration < maxIterations && step > 1e-5; iteration++) {
+            double bound = oneTree(current, degree, null);
+            if (bound > bestBound + EPSILON) {
+                bestBound = bound;
+                System.arraycopy(current, 0, pi, 0, N);
+                sinceImprovement = 0;
+            } else if (++sinceImprovement >= N / 2 + 1) {
+                step /= 2;
+                sinceImprovement = 0;
+            }
+            int norm = 0;
+            for (int v = 0; v < N; v++) norm += (degree[v] - 2) * (degree[v] - 2);
+            // Every node has degree two, so the 1-tree is an optimal tour
+            if (norm == 0) break;
+            double t = step * (bestCost.get() - bound) / norm;
+            if (t <= 0) break;
+            for (int v = 0; v < N; v++) current[v] += t * (degree[v] - 2);
+        }
+
+        weight = new double[N * N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                weight[i * N + j] = Math.min(distance[i][j], distance[j][i]);
+            }
+        }
+    }
+
+    /**
+     * Reduced cost fixing: an edge outside the root 1-tree raises the bound by at least
+     * its penalised weight minus the heaviest edge it would replace (the heaviest edge on
+     * the tree path between its ends, or the second edge at the start). Edges that would
+     * raise the bound above the incumbent cannot be in a better tour and are left out
+     */
+    private void fixEdges() {
+        int[] degree = new int[N];
+        int[] parent = new int[N];
+        double bound = oneTree(pi, degree, parent);
+        double limit = bestCost.get() - 1 + EPSILON;
+        // Adjacency of the spanning tree over every city but the start
+        List<List<Integer>> tree = new ArrayList<>();
+        for (int v = 0; v < N; v++) tree.add(new ArrayList<>());
+        for (int v = 0; v < N; v++) {
+            if (v != start && parent[v] >= 0) {
+                tree.get(v).add(parent[v]);
+                tree.get(parent[v]).add(v);
+            }
+        }
+        // Second cheapest penalised edge at the start, which an edge at the start would replace
+        double first = Double.MAX_VALUE, second = Double.MAX_VALUE;
+        for (int v = 0; v < N; v++) {
+            if (v == start) continue;
+            double w = penalised(pi, start, v);
+            if (w < first) {
+                second = first;
+                first = w;
+            } else if (w < second) {
+                second = w;
+            }
+        }
+        double[] heaviest = new double[N];
+        int[] stack = new int[N];
+        boolean[] seen = new boolean[N];
+        for (int from = 0; from < N; from++) {
+            if (from == start) {
+                for (int v = 0; v < N; v++) {
+                    if (v != start && bound + penalised(pi, start, v) - second > limit) forbid(start, v);
+                }
+                continue;
+            }
+            // Heaviest edge on the tree path from 'from' to every other city
+            Arrays.fill(seen, false);
+            int top = 0;
+            stack[top++] = from;
+            seen[from] = true;
+            heaviest[from] = Double.NEGATIVE_INFINITY;
+            while (top > 0) {
+                int u = stack[--top];
+                for (int v : tree.get(u)) {
+                    if (seen[v]) continue;
+                    seen[v] = true;
+                    heaviest[v] = Math.max(heaviest[u], penalised(pi, u, v));
+                    stack[top++] = v;
+                }
+            }
+            for (int to = from + 1; to < N; to++) {
+                if (to != start && bound + penalised(pi, from, to) - heaviest[to] > limit) forbid(from, to);
+            }
+        }
+    }
+
+    private void forbid(int i, int j) {
+        weight[i * N + j] = Double.POSITIVE_INFINITY;
+        weight[j * N + i] = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Computes the 1-tree of the graph under the penalties: a minimum spanning
+     * tree over every city but the start, plus the two cheapest edges at the start.
+     * @param penalty double[] node penalties
+     * @param degree int[] receives the degree of every node in the 1-tree
+     * @param tree int[] receives the parent of every node in the spanning tree, may be null
+     * @return double Held-Karp bound for these penalties
+     */
+    private double oneTree(double[] penalty, int[] degree, int[] tree) {
+        Arrays.fill(degree, 0);
+        double[] key = new double[N];
+        int[] parent = tree != null ? tree : new int[N];
+        boolean[] inTree = new boolean[N];
+        Arrays.fill(key, Double.MAX_VALUE);
+        int first = start == 0 ? 1 : 0;
+        key[first] = 0;
+        parent[first] = -1;
+        inTree[start] = true;
+        double total = 0;
+        for (int added = 0; added < N - 1; added++) {
+            int u = -1;
+            for (int v = 0; v < N; v++) {
+                if (!inTree[v] && (u == -1 || key[v] < key[u])) u = v;
+            }
+            inTree[u] = true;
+            total += key[u];
+            if (parent[u] >= 0) {
+                degree[u]++;
+                degree[parent[u]]++;
+            }
+            for (int v = 0; v < N; v++) {
+                if (inTree[v]) continue;
+                double w = penalised(penalty, u, v);
+                if (w < key[v]) {
+                    key[v] = w;
+                    parent[v] = u;
+                }
+            }
+        }
+        // Connect the start with its two cheapest edges
+        int a = -1, b = -1;
+        for (int v = 0; v < N; v++) {
+            if (v == start) continue;
+            if (a == -1 || penalised(penalty, start, v) < penalised(penalty, start, a)) {
+                b = a;
+                a = v;
+            } else if (b == -1 || penalised(penalty, start, v) < penalised(penalty, start, b)) {
+                b = v;
+            }
+        }
+        total += penalised(penalty, start, a) + penalised(penalty, start, b);
+        degree[start] = 2;
+        degree[a]++;
+        degree[b]++;
+        double penaltySum = 0;
+        for (int v = 0; v < N; v++) penaltySum += penalty[v];
+        return total - 2 * penaltySum;
+    }
+
+    private double penalised(double[] penalty, int i, int j) {
+        return Math.min(distance[i][j], distance[j][i]) + penalty[i] + penalty[j];
+    }
+
+    /**
+     * Returns the unvisited cities ordered by the edge cost from 'last'
+     * @param last int current end of the path
+     * @param visited boolean[] visited cities
+     * @return int[] unvisited cities, cheapest first
+     */
+    private int[] orderedChildren(int last, boolean[] visited) {
+        return IntStream.range(0, N)
+                .filter(v -> !visited[v])
+                .boxed()
+                .sorted((x, y) -> Integer.compare(distance[last][x], distance[last][y]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // Records a complete tour if it beats the best one found so far.
+    private synchronized void offer(int[] candidate, int cost) {
+        if (bestTour == null || cost < bestCost.get()) {
+            bestTour = candidate;
+            bestCost.set(cost);
+        }
+    }
+
+    // Cost of the closed tour that visits 'order' and returns to its first city.
+    private int tourCost(int[] order) {
+        int cost = 0;
+        for (int i = 0; i < N; i++) {
+            cost += distance[order[i]][order[(i + 1) % N]];
+        }
+        return cost;
+    }
+}
+
+/*
+    Reference:
+    #1 Held and Karp, The traveling-salesman problem and minimum spanning trees: Part II (1971)
+    #2 Volgenant and Jonker, A branch and bound algorithm for the symmetric traveling salesman problem based on the 1-tree relaxation (1982)
+ */
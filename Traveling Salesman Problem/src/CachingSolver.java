@@ -0,0 +1,28 @@
+/**
+ * TspSolver that answers repeated instances from a SolutionCache and passes
+ * everything else on to another solver. Several CachingSolvers may share one cache
+ * only if they wrap the same kind of solver, since the cache does not know which
+ * solver produced an entry.
+ */
+public class CachingSolver implements TspSolver {
+    private final TspSolver solver;
+    private final SolutionCache cache;
+
+    /**
+     * @param solver TspSolver used on a miss
+     * @param cache SolutionCache holding the solutions of 'solver'
+     */
+    public CachingSolver(TspSolver solver, SolutionCache cache) {
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    @Override
+    public TspSolution solve(DistanceMatrix travelPrices, int startingCity) {
+        return cache.computeIfAbsent(travelPrices, startingCity, solver);
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+}
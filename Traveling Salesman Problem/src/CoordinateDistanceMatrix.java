@@ -0,0 +1,108 @@
+/**
+ * Distance matrix that stores only the coordinates of the cities and computes every
+ * price on demand with a CoordinateMetric (Euclidean distance rounded to the nearest
+ * integer unless told otherwise). Memory is linear in the number of cities, so
+ * instances of any size fit.
+ */
+public class CoordinateDistanceMatrix implements DistanceMatrix {
+    // TSPLIB's values for the GEO metric, kept as given so that prices match published optima
+    private static final double GEO_PI = 3.141592;
+    private static final double EARTH_RADIUS = 6378.388;
+
+    private final double[] x;
+    private final double[] y;
+    private final CoordinateMetric metric;
+    // GEO only: latitude and longitude of every city in radians
+    private final double[] latitude;
+    private final double[] longitude;
+
+    /**
+     * @param x double[] first coordinate of every city
+     * @param y double[] second coordinate of every city
+     */
+    public CoordinateDistanceMatrix(double[] x, double[] y) {
+        this(x, y, CoordinateMetric.EUC_2D);
+    }
+
+    /**
+     * @param x double[] first coordinate of every city (latitude for GEO)
+     * @param y double[] second coordinate of every city (longitude for GEO)
+     * @param metric CoordinateMetric rule turning two points into a price
+     */
+    public CoordinateDistanceMatrix(double[] x, double[] y, CoordinateMetric metric) {
+        if (x.length != y.length) throw new IllegalArgumentException("Coordinate arrays must have the same length.");
+        this.x = x.clone();
+        this.y = y.clone();
+        this.metric = metric;
+        if (metric == CoordinateMetric.GEO) {
+            latitude = new double[x.length];
+            longitude = new double[x.length];
+            for (int i = 0; i < x.length; i++) {
+                latitude[i] = geoRadians(x[i]);
+                longitude[i] = geoRadians(y[i]);
+            }
+        } else {
+            latitude = null;
+            longitude = null;
+        }
+    }
+
+    // Converts DDD.MM (degrees and minutes) into radians the way TSPLIB does.
+    private static double geoRadians(double value) {
+        int degrees = (int) value;
+        double minutes = value - degrees;
+        return GEO_PI * (degrees + 5.0 * minutes / 3.0) / 180.0;
+    }
+
+    @Override
+    public int size() {
+        return x.length;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        switch (metric) {
+            case CEIL_2D:
+                return (int) Math.ceil(euclidean(from, to));
+            case ATT: {
+                double dx = x[from] - x[to];
+                double dy = y[from] - y[to];
+                double r = Math.sqrt((dx * dx + dy * dy) / 10.0);
+                int t = (int) (r + 0.5);
+                return t < r ? t + 1 : t;
+            }
+            case GEO: {
+                if (from == to) return 0;
+                double q1 = Math.cos(longitude[from] - longitude[to]);
+                double q2 = Math.cos(latitude[from] - latitude[to]);
+                double q3 = Math.cos(latitude[from] + latitude[to]);
+                return (int) (EARTH_RADIUS * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+            }
+            default:
+                return (int) (euclidean(from, to) + 0.5);
+        }
+    }
+
+    private double euclidean(int from, int to) {
+        double dx = x[from] - x[to];
+        double dy = y[from] - y[to];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    public CoordinateMetric getMetric() {
+        return metric;
+    }
+
+    public double getX(int city) {
+        return x[city];
+    }
+
+    public double getY(int city) {
+        return y[city];
+    }
+}
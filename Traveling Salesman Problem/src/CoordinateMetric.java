@@ -0,0 +1,10 @@
+/**
+ * How CoordinateDistanceMatrix turns two points into an integer price.
+ * The names and rounding rules are those of TSPLIB's EDGE_WEIGHT_TYPE.
+ */
+public enum CoordinateMetric {
+    EUC_2D,     // Euclidean distance rounded to the nearest integer
+    CEIL_2D,    // Euclidean distance rounded up
+    ATT,        // Pseudo-Euclidean distance of the att48 / att532 instances
+    GEO         // Great-circle distance in km, coordinates given as DDD.MM degrees and minutes
+}
@@ -0,0 +1,45 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Memo store backed by off-heap direct buffers. The table does not count
+ * against the Java heap and is never scanned or copied by the garbage collector,
+ * but it is limited by -XX:MaxDirectMemorySize.
+ */
+public class DirectMemoStore implements MemoStore {
+    private final long size;
+    private IntBuffer[] chunks;
+
+    public DirectMemoStore(long size) {
+        this.size = size;
+        int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        chunks = new IntBuffer[count];
+        for (int i = 0; i < count; i++) {
+            int ints = (int) Math.min(CHUNK_SIZE, size - ((long) i << CHUNK_SHIFT));
+            chunks[i] = ByteBuffer.allocateDirect(ints * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    // Absolute get/put never move the buffer position, so distinct indices can be used concurrently
+    @Override
+    public int get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK);
+    }
+
+    @Override
+    public void set(long index, int value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    // The buffers are freed once they become unreachable
+    @Override
+    public void close() {
+        chunks = null;
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Travel prices between every ordered pair of cities, read by the solvers through
+ * get(from, to). The implementations only differ in how the prices are stored:
+ * a view of an int[][] (ArrayDistanceMatrix), one flat row-major array
+ * (FlatDistanceMatrix), the upper triangle of a symmetric matrix
+ * (TriangularDistanceMatrix), bytes or shorts for small price ranges
+ * (NarrowDistanceMatrix) or nothing at all, computing prices from coordinates
+ * (CoordinateDistanceMatrix). All of them are read-only and can be shared by threads.
+ */
+public interface DistanceMatrix {
+    // Returns the number of cities.
+    int size();
+
+    // Returns the price of travelling from one city to another.
+    int get(int from, int to);
+
+    // Returns true if get(a, b) == get(b, a) for every pair of cities.
+    boolean isSymmetric();
+
+    /**
+     * Copies the prices into a new int[][], for code that still works on arrays
+     * @return int[][] graph
+     */
+    default int[][] toArray() {
+        int n = size();
+        int[][] prices = new int[n][n];
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                prices[from][to] = get(from, to);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Uses an int[][] as it is, without copying it
+     * @param prices int[][] graph, must not change while it is in use
+     * @return DistanceMatrix
+     */
+    static DistanceMatrix wrap(int[][] prices) {
+        return new ArrayDistanceMatrix(prices);
+    }
+
+    /**
+     * This method copies an int[][] into the most compact backend that holds it exactly:
+     * the upper triangle for symmetric prices, and bytes or shorts when the range of the
+     * prices allows it. Main.getMatrix (symmetric, prices up to 30) ends up as one byte per pair
+     * @param prices int[][] graph
+     * @return DistanceMatrix
+     */
+    static DistanceMatrix of(int[][] prices) {
+        return of(prices.length, (from, to) -> prices[from][to]);
+    }
+
+    /**
+     * Same as of(int[][]) for prices computed by a function, so that no int[][]
+     * has to exist at any time
+     * @param size int number of cities
+     * @param price IntBinaryOperator price from the first city to the second, called several times per pair
+     * @return DistanceMatrix
+     */
+    static DistanceMatrix of(int size, IntBinaryOperator price) {
+        return of(size, price, isSymmetric(size, price));
+    }
+
+    /**
+     * Copies another matrix, e.g. a CoordinateDistanceMatrix, into the most compact stored backend.
+     * Its own isSymmetric() is trusted, which saves a pass over all pairs
+     * @param source DistanceMatrix
+     * @return DistanceMatrix
+     */
+    static DistanceMatrix of(DistanceMatrix source) {
+        return of(source.size(), source::get, source.isSymmetric());
+    }
+
+    /**
+     * Same as of(int, IntBinaryOperator) when the caller already knows whether the prices are symmetric
+     * @param size int number of cities
+     * @param price IntBinaryOperator price from the first city to the second, only called with from <= to if symmetric
+     * @param symmetric boolean true if the prices are the same in both directions
+     * @return DistanceMatrix
+     */
+    static DistanceMatrix of(int size, IntBinaryOperator price, boolean symmetric) {
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (int from = 0; from < size; from++) {
+            for (int to = symmetric ? from : 0; to < size; to++) {
+                int value = price.applyAsInt(from, to);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (max - min <= NarrowDistanceMatrix.MAX_SPAN)
+            return new NarrowDistanceMatrix(size, price, symmetric, (int) min, (int) max);
+        if (symmetric) return new TriangularDistanceMatrix(size, price);
+        return new FlatDistanceMatrix(size, price);
+    }
+
+    /**
+     * This method checks every pair once
+     * @param size int number of cities
+     * @param price IntBinaryOperator
+     * @return boolean true if the prices are the same in both directions
+     */
+    static boolean isSymmetric(int size, IntBinaryOperator price) {
+        for (int from = 0; from < size; from++) {
+            for (int to = from + 1; to < size; to++) {
+                if (price.applyAsInt(from, to) != price.applyAsInt(to, from)) return false;
+            }
+        }
+        return true;
+    }
+}
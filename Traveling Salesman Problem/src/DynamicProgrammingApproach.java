@@ -1,23 +1,86 @@
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class DynamicProgrammingApproach {
+public class DynamicProgrammingApproach implements TspSolver {
+    // Largest N whose memo table size in bytes still fits in a long
+    public static final int MAX_N = 56;
     private final int N, start;
+    private final int parallelism;
+    private final MemoBackend memoBackend;
     private final int[][] distance;
     private final List<Integer> tour = new ArrayList<>();
     private int minTourCost = Integer.MAX_VALUE;
     private boolean ranSolver = false;
 
     public DynamicProgrammingApproach(int start, int[][] distance) {
+        this(start, distance, 1);
+    }
+
+    /**
+     * Solver that splits every Held-Karp layer across a ForkJoinPool.
+     * Layer r only reads layer r - 1, so the layers run one after another
+     * and the subsets inside a layer run in parallel.
+     * @param start int starting node
+     * @param distance int[][] graph
+     * @param parallelism int number of worker threads, 1 solves on the calling thread
+     */
+    public DynamicProgrammingApproach(int start, int[][] distance, int parallelism) {
+        this(start, distance, parallelism, MemoBackend.AUTO);
+    }
+
+    /**
+     * Solver with an explicit memo backend. With AUTO the backend is picked
+     * from the predicted footprint, see MemoBackend.select.
+     * @param start int starting node
+     * @param distance int[][] graph
+     * @param parallelism int number of worker threads, 1 solves on the calling thread
+     * @param memoBackend MemoBackend where the memo table is stored
+     */
+    public DynamicProgrammingApproach(int start, int[][] distance, int parallelism, MemoBackend memoBackend) {
         N = distance.length;
 
         if (N <= 2) throw new IllegalStateException("N <= 2 not yet supported.");
         if (N != distance[0].length) throw new IllegalStateException("Matrix must be square (n x n)");
         if (start < 0 || start >= N) throw new IllegalArgumentException("Invalid start node.");
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1.");
+        if (N > MAX_N) throw new IllegalStateException("N > " + MAX_N + " not supported.");
 
         this.start = start;
         this.distance = distance;
+        this.parallelism = parallelism;
+        this.memoBackend = memoBackend;
+    }
+
+    /**
+     * Solver on any distance matrix backend. The matrix is copied into an int[][]
+     * once, which is small next to the memo table for every supported N
+     * @param start int starting node
+     * @param distance DistanceMatrix graph
+     * @param parallelism int number of worker threads, 1 solves on the calling thread
+     */
+    public DynamicProgrammingApproach(int start, DistanceMatrix distance, int parallelism) {
+        this(start, distance.toArray(), parallelism, MemoBackend.AUTO);
+    }
+
+    /**
+     * TspSolver entry point: solves another instance with the parallelism and memo
+     * backend of this solver, on a new solver, so calls may run concurrently
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return TspSolution optimal tour
+     */
+    @Override
+    public TspSolution solve(DistanceMatrix travelPrices, int startingCity) {
+        DynamicProgrammingApproach solver = new DynamicProgrammingApproach(startingCity, travelPrices.toArray(), parallelism, memoBackend);
+        return new TspSolution(solver.getTour(), solver.getTourCost());
+    }
+
+    // Returns the number of worker threads used by solve().
+    public int getParallelism() {
+        return parallelism;
     }
 
     // Returns the optimal tour for the traveling salesman problem.
@@ -32,68 +95,100 @@ public class DynamicProgrammingApproach {
         return minTourCost;
     }
 
+    /**
+     * Predicted size of the memo table in bytes for a graph with n vertices.
+     * The starting node is dropped from the subset index, so the table holds
+     * (n - 1) * 2^(n - 1) ints instead of n * 2^n.
+     * @param n int number of vertices
+     * @return long bytes the memo table will occupy
+     */
+    public static long predictedMemoBytes(int n) {
+        if (n > MAX_N) return Long.MAX_VALUE;
+        return ((long) (n - 1) << (n - 1)) * Integer.BYTES;
+    }
+
+    // Returns the predicted memo footprint for this instance in bytes.
+    public long getPredictedMemoBytes() {
+        return predictedMemoBytes(N);
+    }
+
+    // Returns the backend the memo table is (or will be) stored in.
+    public MemoBackend getMemoBackend() {
+        return memoBackend == MemoBackend.AUTO ? MemoBackend.select(getPredictedMemoBytes()) : memoBackend;
+    }
+
     // Solves the traveling salesman problem and caches solution.
     public void solve() {
         if (ranSolver) return;
-        final int END_STATE = (1 << N) - 1;
-        int[][] memo = new int[N][1 << N];
-        // Add all outgoing edges from the starting node to memo table.
-        for (int end = 0; end < N; end++) {
-            if (end == start) continue;
-            memo[end][(1 << start) | (1 << end)] = distance[start][end];
+        // Every node except the start is relabelled to 0..M-1, so a subset is an M bit mask
+        // and memo[subset * M + k] is the cheapest path leaving start, visiting exactly
+        // 'subset' and ending at k. Subset-major storage keeps the scan over k contiguous.
+        final int M = N - 1;
+        final long END_STATE = (1L << M) - 1;
+        int[] city = new int[M];
+        for (int k = 0; k < M; k++) city[k] = k < start ? k : k + 1;
+        // distanceTo[k * M + j] is the edge j -> k, read contiguously while minimizing over j
+        int[] distanceTo = new int[M * M];
+        for (int k = 0; k < M; k++) {
+            for (int j = 0; j < M; j++) {
+                distanceTo[k * M + j] = distance[city[j]][city[k]];
+            }
         }
-        // The combinations function generates all bit sets
-        // of size N with r bits set to 1. i.e.
-        // combinations (3, 4) = {0111, 1011, 1101, 1110}
-        // This bitmask method is useful to store state representation
-        // and can be cached easily
-        // Reference: https://stackoverflow.com/questions/33527127/dynamic-programming-approach-to-tsp-in-java
-        for (int r = 3; r <= N; r++) {
-            for (int subset : combinations(r, N)) {
-                if (notIn(start, subset)) continue;
-                for (int next = 0; next < N; next++) {
-                    if (next == start || notIn(next, subset)) continue;
-                    // The subset state is without the next node
-                    int subsetWithoutNext = subset ^ (1 << next);
-                    int minDist = Integer.MAX_VALUE;
-                    for (int end = 0; end < N; end++) {
-                        if (end == start || end == next || notIn(end, subset)) continue;
-                        int newDistance = memo[end][subsetWithoutNext] + distance[end][next];
-                        if (newDistance < minDist) {
-                            minDist = newDistance;
-                        }
+        try (MemoStore memo = MemoStore.create(getMemoBackend(), (long) M << M)) {
+            // Add all outgoing edges from the starting node to memo table.
+            for (int k = 0; k < M; k++) {
+                memo.set((1L << k) * M + k, distance[start][city[k]]);
+            }
+            // Each layer walks all bit sets of size M with r bits set to 1
+            // in increasing order, i.e. for r = 3, M = 4: {0111, 1011, 1101, 1110}
+            // Reference: https://stackoverflow.com/questions/33527127/dynamic-programming-approach-to-tsp-in-java
+            if (parallelism == 1) {
+                for (int r = 2; r <= M; r++) {
+                    relaxLayer(memo, distanceTo, M, r, (1L << r) - 1, binomial(M, r));
+                }
+            } else {
+                long[][] binomials = binomialTable(M);
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    for (int r = 2; r <= M; r++) {
+                        long count = binomials[M][r];
+                        long grain = Math.max(64, count / (parallelism * 8L));
+                        // invoke() returns once the whole layer is written, which is the barrier
+                        // that makes layer r visible to every task of layer r + 1
+                        pool.invoke(new LayerTask(memo, distanceTo, binomials, M, r, 0, count, grain));
                     }
-                    memo[next][subset] = minDist;
+                } finally {
+                    pool.shutdown();
                 }
             }
-        }
-        // Connect tour back to starting node and minimize cost.
-        for (int i = 0; i < N; i++) {
-            if (i == start) continue;
-            int tourCost = memo[i][END_STATE] + distance[i][start];
-            if (tourCost < minTourCost) {
-                minTourCost = tourCost;
+            // Connect tour back to starting node and minimize cost.
+            long fullBase = END_STATE * M;
+            for (int k = 0; k < M; k++) {
+                int tourCost = memo.get(fullBase + k) + distance[city[k]][start];
+                if (tourCost < minTourCost) {
+                    minTourCost = tourCost;
+                }
             }
-        }
-        int lastIndex = start;
-        int state = END_STATE;
-        tour.add(start);
-        // Reconstruct TSP path from memo table.
-        for (int i = 1; i < N; i++) {
-            int index = -1;
-            for (int j = 0; j < N; j++) {
-                if (j == start || notIn(j, state)) continue;
-                if (index == -1) index = j;
-                int prevDist = memo[index][state] + distance[index][lastIndex];
-                int newDist = memo[j][state] + distance[j][lastIndex];
-                if (newDist < prevDist) {
-                    index = j;
+            int lastIndex = start;
+            long state = END_STATE;
+            tour.add(start);
+            // Reconstruct TSP path from memo table.
+            for (int i = 0; i < M; i++) {
+                int index = -1;
+                int bestDist = Integer.MAX_VALUE;
+                for (int k = 0; k < M; k++) {
+                    if (notIn(k, state)) continue;
+                    int newDist = memo.get(state * M + k) + distance[city[k]][lastIndex];
+                    if (index == -1 || newDist < bestDist) {
+                        index = k;
+                        bestDist = newDist;
+                    }
                 }
+                tour.add(city[index]);
+                // Shift the state
+                state = state ^ (1L << index);
+                lastIndex = city[index];
             }
-            tour.add(index);
-            // Shift the state
-            state = state ^ (1 << index);
-            lastIndex = index;
         }
 
         // Adding the start node to finish the cycle,
@@ -104,15 +199,121 @@ public class DynamicProgrammingApproach {
         ranSolver = true;
     }
 
+    /**
+     * This method fills the memo entries of 'count' consecutive subsets of one layer,
+     * starting at 'subset'. nextCombination steps from one mask to the next
+     * without building a list, so no Integer is boxed on the way.
+     * @param memo MemoStore flat memo table
+     * @param distanceTo int[] transposed distances of the relabelled nodes
+     * @param M int number of nodes other than the start
+     * @param r int layer (number of bits set)
+     * @param subset long first mask of the range
+     * @param count long number of masks to process
+     */
+    private static void relaxLayer(MemoStore memo, int[] distanceTo, int M, int r, long subset, long count) {
+        for (long i = 0; i < count; i++, subset = nextCombination(subset)) {
+            for (int next = 0; next < M; next++) {
+                if (notIn(next, subset)) continue;
+                // The subset state is without the next node
+                long subsetWithoutNext = subset ^ (1L << next);
+                long base = subsetWithoutNext * M;
+                int row = next * M;
+                int minDist = Integer.MAX_VALUE;
+                for (int end = 0; end < M; end++) {
+                    if (notIn(end, subsetWithoutNext)) continue;
+                    int newDistance = memo.get(base + end) + distanceTo[row + end];
+                    if (newDistance < minDist) {
+                        minDist = newDistance;
+                    }
+                }
+                memo.set(subset * M + next, minDist);
+            }
+        }
+    }
+
+    /**
+     * Splits the masks of one layer by rank. Every task unranks its first mask
+     * and then walks its range with nextCombination, so tasks share no state
+     * and write disjoint memo entries.
+     */
+    private static final class LayerTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MemoStore memo;
+        private final int[] distanceTo;
+        private final long[][] binomials;
+        private final int M, r;
+        private final long from, to, grain;
+
+        LayerTask(MemoStore memo, int[] distanceTo, long[][] binomials, int M, int r, long from, long to, long grain) {
+            this.memo = memo;
+            this.distanceTo = distanceTo;
+            this.binomials = binomials;
+            this.M = M;
+            this.r = r;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                relaxLayer(memo, distanceTo, M, r, unrankCombination(from, r, binomials), to - from);
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new LayerTask(memo, distanceTo, binomials, M, r, from, mid, grain),
+                    new LayerTask(memo, distanceTo, binomials, M, r, mid, to, grain));
+        }
+    }
+
+    /**
+     * This method returns the mask at position 'rank' in the increasing
+     * order of masks with r bits set (combinatorial number system)
+     * @param rank long position of the mask
+     * @param r int number of bits set
+     * @param binomials long[][] table from binomialTable
+     * @return long bit set
+     */
+    private static long unrankCombination(long rank, int r, long[][] binomials) {
+        long mask = 0;
+        int bit = binomials.length - 1;
+        for (int i = r; i >= 1; i--) {
+            // Highest bit c with C(c, i) <= rank belongs to the mask
+            while (binomials[bit][i] > rank) bit--;
+            mask |= 1L << bit;
+            rank -= binomials[bit][i];
+            bit--;
+        }
+        return mask;
+    }
+
+    /**
+     * This method returns Pascal's triangle up to n, table[a][b] = C(a, b)
+     * @param n int
+     * @return long[][] binomial coefficients
+     */
+    private static long[][] binomialTable(int n) {
+        long[][] table = new long[n + 1][n + 1];
+        for (int a = 0; a <= n; a++) {
+            table[a][0] = 1;
+            for (int b = 1; b <= a; b++) {
+                table[a][b] = table[a - 1][b - 1] + table[a - 1][b];
+            }
+        }
+        return table;
+    }
+
     /**
      * This method returns true if the ith bit in 'subset' is not a set
      *
      * @param elem   int
-     * @param subset int
+     * @param subset long
      * @return boolean
      */
-    private static boolean notIn(int elem, int subset) {
-        return ((1 << elem) & subset) == 0;
+    private static boolean notIn(int elem, long subset) {
+        return ((1L << elem) & subset) == 0;
     }
 
     /**
@@ -128,6 +329,74 @@ public class DynamicProgrammingApproach {
         return subsets;
     }
 
+    /**
+     * Primitive variant of combinations(r, n). The masks are returned in increasing
+     * order in an int[] sized exactly to C(n, r), so nothing is boxed.
+     * @param r int
+     * @param n int
+     * @return int[] masked integers
+     */
+    public static int[] combinationMasks(int r, int n) {
+        if (r < 0 || n < 0 || n > 31) throw new IllegalArgumentException("Invalid bit set size.");
+        if (r > n) return new int[0];
+        long count = binomial(n, r);
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many bit sets to return as an array.");
+        int[] masks = new int[(int) count];
+        // Work in long so that masks using bit 31 do not overflow while stepping
+        long limit = 1L << n;
+        long mask = (1L << r) - 1;
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = (int) mask;
+            if (r == 0) break;
+            long lowest = mask & -mask;
+            long ripple = mask + lowest;
+            mask = (((ripple ^ mask) >>> 2) / lowest) | ripple;
+            if (mask >= limit) break;
+        }
+        return masks;
+    }
+
+    /**
+     * This method returns the next larger integer with the same number of bits set
+     * (Gosper's hack). Starting from (1 << r) - 1 and stopping once the mask
+     * reaches 1 << n walks every bit set of size n with r bits set, in order.
+     * Valid for masks below 1 << 30.
+     * @param mask int current bit set, must be non-zero
+     * @return int next bit set
+     */
+    public static int nextCombination(int mask) {
+        int lowest = mask & -mask;
+        int ripple = mask + lowest;
+        return (((ripple ^ mask) >>> 2) / lowest) | ripple;
+    }
+
+    /**
+     * Long variant of nextCombination(int) for bit sets of up to 62 elements
+     * @param mask long current bit set, must be non-zero
+     * @return long next bit set
+     */
+    public static long nextCombination(long mask) {
+        long lowest = mask & -mask;
+        long ripple = mask + lowest;
+        return (((ripple ^ mask) >>> 2) / lowest) | ripple;
+    }
+
+    /**
+     * This method returns the binomial coefficient C(n, r)
+     * @param n int
+     * @param r int
+     * @return long number of bit sets of size n with r bits set
+     */
+    public static long binomial(int n, int r) {
+        if (r < 0 || r > n) return 0;
+        r = Math.min(r, n - r);
+        long result = 1;
+        for (int i = 1; i <= r; i++) {
+            result = result * (n - r + i) / i;
+        }
+        return result;
+    }
+
     /**
      * This method recursively calls itself to generate bit sets
      *
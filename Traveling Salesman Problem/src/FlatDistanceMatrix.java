@@ -0,0 +1,47 @@
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Distance matrix stored row-major in one int[], so a lookup is a single
+ * array access without following a row pointer.
+ */
+public class FlatDistanceMatrix implements DistanceMatrix {
+    private final int n;
+    private final int[] prices;
+    private final boolean symmetric;
+
+    public FlatDistanceMatrix(int[][] prices) {
+        this(prices.length, (from, to) -> prices[from][to]);
+    }
+
+    /**
+     * @param size int number of cities, at most 46340 so that n^2 fits an array
+     * @param price IntBinaryOperator price from the first city to the second
+     */
+    public FlatDistanceMatrix(int size, IntBinaryOperator price) {
+        if ((long) size * size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many cities for a flat matrix: " + size + ".");
+        n = size;
+        prices = new int[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                prices[from * size + to] = price.applyAsInt(from, to);
+            }
+        }
+        symmetric = DistanceMatrix.isSymmetric(size, this::get);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return prices[from * n + to];
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Snapshot of one generation of Ubermensch.optimize(), handed to the generation
+ * listener and kept in Ubermensch.getMetrics(). Times of the phases that run on
+ * worker threads are summed over the threads, so with parallelism above 1 they
+ * can add up to more than the wall time of the generation.
+ */
+public class GenerationMetrics {
+    private final int generation;
+    private final int bestFitness;
+    private final int globalBestFitness;
+    private final double meanFitness;
+    private final double diversity;
+    private final long selectionNanos;
+    private final long crossoverNanos;
+    private final long mutationNanos;
+    private final long evaluationNanos;
+    private final long allocatedBytes;
+
+    /**
+     * @param generation int number of the generation, starting at 1
+     * @param bestFitness int best fitness in the generation
+     * @param globalBestFitness int best fitness seen so far
+     * @param meanFitness double mean fitness of the generation
+     * @param diversity double distinct tours divided by the population size
+     * @param selectionNanos long time spent selecting parents
+     * @param crossoverNanos long time spent building children
+     * @param mutationNanos long time spent mutating children
+     * @param evaluationNanos long time spent computing fitness, including local search
+     * @param allocatedBytes long bytes allocated during the generation, -1 if the JVM cannot tell
+     */
+    public GenerationMetrics(int generation, int bestFitness, int globalBestFitness, double meanFitness, double diversity,
+                             long selectionNanos, long crossoverNanos, long mutationNanos, long evaluationNanos, long allocatedBytes) {
+        this.generation = generation;
+        this.bestFitness = bestFitness;
+        this.globalBestFitness = globalBestFitness;
+        this.meanFitness = meanFitness;
+        this.diversity = diversity;
+        this.selectionNanos = selectionNanos;
+        this.crossoverNanos = crossoverNanos;
+        this.mutationNanos = mutationNanos;
+        this.evaluationNanos = evaluationNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getBestFitness() {
+        return bestFitness;
+    }
+
+    public int getGlobalBestFitness() {
+        return globalBestFitness;
+    }
+
+    public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    public double getDiversity() {
+        return diversity;
+    }
+
+    public long getSelectionNanos() {
+        return selectionNanos;
+    }
+
+    public long getCrossoverNanos() {
+        return crossoverNanos;
+    }
+
+    public long getMutationNanos() {
+        return mutationNanos;
+    }
+
+    public long getEvaluationNanos() {
+        return evaluationNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * One line per generation, e.g. for printing progress
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return String.format("Generation %d: best %d (overall %d), mean %.1f, diversity %.3f, "
+                        + "selection %.2f ms, crossover %.2f ms, mutation %.2f ms, evaluation %.2f ms, allocated %d bytes",
+                generation, bestFitness, globalBestFitness, meanFitness, diversity,
+                selectionNanos / 1e6, crossoverNanos / 1e6, mutationNanos / 1e6, evaluationNanos / 1e6, allocatedBytes);
+    }
+}
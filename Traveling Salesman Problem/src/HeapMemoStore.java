@@ -0,0 +1,36 @@
+/**
+ * Memo store backed by int[] chunks on the Java heap.
+ */
+public class HeapMemoStore implements MemoStore {
+    private final long size;
+    private int[][] chunks;
+
+    public HeapMemoStore(long size) {
+        this.size = size;
+        int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        chunks = new int[count][];
+        for (int i = 0; i < count; i++) {
+            chunks[i] = new int[(int) Math.min(CHUNK_SIZE, size - ((long) i << CHUNK_SHIFT))];
+        }
+    }
+
+    @Override
+    public int get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)][(int) index & CHUNK_MASK];
+    }
+
+    @Override
+    public void set(long index, int value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)][(int) index & CHUNK_MASK] = value;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        chunks = null;
+    }
+}
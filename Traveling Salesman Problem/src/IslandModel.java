@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Island-model genetic algorithm: several Ubermensch populations evolve independently,
+ * each on its own thread, and every migrationInterval generations each island sends
+ * copies of its best genomes to another island. Migrants travel through lock-free
+ * queues and are taken in by the receiving island at its next migration, where they
+ * replace its worst genomes, so islands never wait for each other. Because of that,
+ * runs are not reproducible even with a fixed seed.
+ */
+public class IslandModel {
+    private final int numberOfCities;
+    private final int startingCity;
+    private final DistanceMatrix travelPrices;
+    private final Ubermensch[] islands;
+    // Paths of the genomes sent to each island, without the starting city
+    private final List<ConcurrentLinkedQueue<int[]>> inboxes = new ArrayList<>();
+    private final SplittableRandom[] migrationRandom;
+    private MigrationTopology topology = MigrationTopology.RING;
+    private int migrationInterval = 50;
+    private int migrants = 5;
+
+    /**
+     * One island per selection type, so islands can mix ROULETTE and TOURNAMENT
+     * @param numberOfCities int number of vertices
+     * @param travelPrices int[][] graph
+     * @param startingCity int starting position
+     * @param selectionTypes SelectionType[] selection method of every island
+     * @param seed long seed of the islands and of the random topology
+     */
+    public IslandModel(int numberOfCities, int[][] travelPrices, int startingCity, SelectionType[] selectionTypes, long seed){
+        this(numberOfCities, DistanceMatrix.wrap(travelPrices), startingCity, selectionTypes, seed);
+    }
+
+    /**
+     * One island per selection type, all sharing one distance matrix
+     * @param numberOfCities int number of vertices
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting position
+     * @param selectionTypes SelectionType[] selection method of every island
+     * @param seed long seed of the islands and of the random topology
+     */
+    public IslandModel(int numberOfCities, DistanceMatrix travelPrices, int startingCity, SelectionType[] selectionTypes, long seed){
+        if (selectionTypes.length < 2) throw new IllegalArgumentException("At least two islands are needed.");
+        this.numberOfCities = numberOfCities;
+        this.startingCity = startingCity;
+        this.travelPrices = travelPrices;
+        SplittableRandom random = new SplittableRandom(seed);
+        islands = new Ubermensch[selectionTypes.length];
+        migrationRandom = new SplittableRandom[selectionTypes.length];
+        for (int i = 0; i < islands.length; i++) {
+            islands[i] = new Ubermensch(numberOfCities, selectionTypes[i], travelPrices, startingCity, 0, random.nextLong(), 1);
+            migrationRandom[i] = random.split();
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Islands that all use the same selection type
+     * @param numberOfCities int number of vertices
+     * @param travelPrices int[][] graph
+     * @param startingCity int starting position
+     * @param numberOfIslands int number of populations, one thread each
+     * @param selectionType enum selection method of every island
+     * @param seed long seed of the islands and of the random topology
+     */
+    public IslandModel(int numberOfCities, int[][] travelPrices, int startingCity, int numberOfIslands, SelectionType selectionType, long seed){
+        this(numberOfCities, travelPrices, startingCity, sameType(numberOfIslands, selectionType), seed);
+    }
+
+    private static SelectionType[] sameType(int numberOfIslands, SelectionType selectionType){
+        SelectionType[] selectionTypes = new SelectionType[numberOfIslands];
+        Arrays.fill(selectionTypes, selectionType);
+        return selectionTypes;
+    }
+
+    /**
+     * Sets how and how often the islands exchange genomes
+     * @param interval int generations between migrations, 0 keeps the islands isolated
+     * @param count int number of best genomes each island sends per migration
+     * @param topology MigrationTopology RING sends to the next island, RANDOM to any other island
+     */
+    public void setMigration(int interval, int count, MigrationTopology topology){
+        if (interval < 0 || count < 0) throw new IllegalArgumentException("Migration settings must not be negative.");
+        migrationInterval = interval;
+        migrants = count;
+        this.topology = topology;
+    }
+
+    /**
+     * Getter method for an island, e.g. to set up local search, steady state or early stopping
+     * @param index int island number
+     * @return Ubermensch population of the island
+     */
+    public Ubermensch getIsland(int index){
+        return islands[index];
+    }
+
+    public int getNumberOfIslands(){
+        return islands.length;
+    }
+
+    /**
+     * Runs every island on its own thread until all of them have stopped
+     * @return SalesmanGenome best genome over all islands
+     */
+    public SalesmanGenome optimize(){
+        for (ConcurrentLinkedQueue<int[]> inbox : inboxes) inbox.clear();
+        // Islands with a memetic stage share one set of read-only candidate lists
+        NeighborLists candidates = null;
+        for (Ubermensch island : islands) {
+            if (!island.usesLocalSearch()) continue;
+            if (candidates == null) candidates = NeighborLists.of(travelPrices, Ubermensch.CANDIDATES_PER_CITY);
+            island.setNeighborLists(candidates);
+        }
+        ExecutorService threads = Executors.newFixedThreadPool(islands.length);
+        try {
+            List<Future<SalesmanGenome>> results = new ArrayList<>();
+            for (int i = 0; i < islands.length; i++) {
+                int island = i;
+                SalesmanGenome[][] ranked = {new SalesmanGenome[0]};
+                islands[i].setGenerationHook((generation, population) -> {
+                    if (migrationInterval > 0 && generation % migrationInterval == 0) {
+                        ranked[0] = migrate(island, population, ranked[0]);
+                    }
+                });
+                Callable<SalesmanGenome> run = islands[i]::optimize;
+                results.add(threads.submit(run));
+            }
+            SalesmanGenome best = null;
+            for (Future<SalesmanGenome> result : results) {
+                SalesmanGenome candidate = result.get();
+                if (best == null || candidate.compareTo(best) < 0) best = candidate;
+            }
+            return best;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the islands were running.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            threads.shutdownNow();
+            for (Ubermensch island : islands) island.setGenerationHook(null);
+        }
+    }
+
+    /**
+     * Sends copies of the best genomes of an island away and puts the migrants that
+     * arrived since the last migration in place of its worst genomes. Runs on the island's thread
+     * @param island int island number
+     * @param population SalesmanGenome[] population of the island, changed in place
+     * @param ranked SalesmanGenome[] scratch array for sorting, reused between migrations
+     * @return SalesmanGenome[] the scratch array to use next time
+     */
+    private SalesmanGenome[] migrate(int island, SalesmanGenome[] population, SalesmanGenome[] ranked){
+        if (ranked.length != population.length) ranked = new SalesmanGenome[population.length];
+        System.arraycopy(population, 0, ranked, 0, population.length);
+        Arrays.sort(ranked);
+
+        int count = Math.min(migrants, population.length / 2);
+        ConcurrentLinkedQueue<int[]> target = inboxes.get(destination(island));
+        for (int i = 0; i < count; i++) {
+            target.add(ranked[i].getPath().clone());
+        }
+
+        // Migrants replace the worst genomes, never more than half of the population
+        ConcurrentLinkedQueue<int[]> inbox = inboxes.get(island);
+        int worst = ranked.length - 1;
+        int[] migrant;
+        while (worst >= ranked.length / 2 && (migrant = inbox.poll()) != null) {
+            SalesmanGenome replaced = ranked[worst--];
+            System.arraycopy(migrant, 0, replaced.getPath(), 0, migrant.length);
+            replaced.updateFitness();
+        }
+        return ranked;
+    }
+
+    // Island that receives the migrants of 'island'.
+    private int destination(int island){
+        if (topology == MigrationTopology.RING) return (island + 1) % islands.length;
+        int other = migrationRandom[island].nextInt(islands.length - 1);
+        return other >= island ? other + 1 : other;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Two-dimensional k-d tree over the cities of a coordinate instance, for k-nearest
+ * neighbour queries in O(log n) on average instead of a scan over all n cities.
+ * The tree is an implicit, balanced layout of one index array: every range of
+ * the array is split at its median on alternating axes. It is read-only once built
+ * and can be queried by any number of threads at once.
+ */
+public class KdTree {
+    // Ranges this small are scanned instead of split further
+    private static final int LEAF_SIZE = 8;
+
+    private final double[] x;
+    private final double[] y;
+    // Cities in tree order; the median of every range is the node that splits it
+    private final int[] order;
+
+    /**
+     * Builds the tree in O(n log n) with quickselect
+     * @param x double[] first coordinate of every city
+     * @param y double[] second coordinate of every city
+     */
+    public KdTree(double[] x, double[] y) {
+        if (x.length != y.length) throw new IllegalArgumentException("Coordinate arrays must have the same length.");
+        this.x = x;
+        this.y = y;
+        order = new int[x.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        build(0, order.length, 0);
+    }
+
+    /**
+     * Builds the tree over the cities of a coordinate matrix
+     * @param matrix CoordinateDistanceMatrix
+     */
+    public KdTree(CoordinateDistanceMatrix matrix) {
+        this(coordinates(matrix, true), coordinates(matrix, false));
+    }
+
+    private static double[] coordinates(CoordinateDistanceMatrix matrix, boolean first) {
+        double[] values = new double[matrix.size()];
+        for (int i = 0; i < values.length; i++) values[i] = first ? matrix.getX(i) : matrix.getY(i);
+        return values;
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    private void build(int lo, int hi, int axis) {
+        while (hi - lo > LEAF_SIZE) {
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, axis);
+            build(lo, mid, axis ^ 1);
+            // The right half is handled by the loop, which keeps the recursion depth at log n
+            lo = mid + 1;
+            axis ^= 1;
+        }
+    }
+
+    // Reorders order[lo..hi] so that order[k] holds the city with the k-th smallest coordinate on the axis.
+    private void select(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            double pivot = coordinate(order[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (coordinate(order[i], axis) < pivot) i++;
+                while (coordinate(order[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = temp;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private double coordinate(int city, int axis) {
+        return axis == 0 ? x[city] : y[city];
+    }
+
+    /**
+     * Finds the k cities closest to a city, itself excluded. Ties are broken by the
+     * smaller city number, so the result does not depend on the tree layout
+     * @param city int query city
+     * @param k int number of neighbours, at most n - 1
+     * @param neighbors int[] receives the neighbours, nearest first, at least k long
+     * @param distances double[] scratch of at least k entries, receives the squared distances
+     */
+    public void nearest(int city, int k, int[] neighbors, double[] distances) {
+        if (k > order.length - 1) throw new IllegalArgumentException("Only " + (order.length - 1) + " neighbours exist.");
+        if (k == 0) return;
+        // neighbors / distances hold a max-heap of the best k so far, the farthest at index 0
+        int[] count = {0};
+        search(0, order.length, 0, city, k, neighbors, distances, count);
+        // Heap sort in place turns the max-heap into ascending order
+        for (int size = k - 1; size > 0; size--) {
+            swap(neighbors, distances, 0, size);
+            siftDown(neighbors, distances, 0, size);
+        }
+    }
+
+    private void search(int lo, int hi, int axis, int city, int k, int[] neighbors, double[] distances, int[] count) {
+        while (hi - lo > LEAF_SIZE) {
+            int mid = (lo + hi) >>> 1;
+            int node = order[mid];
+            offer(node, city, k, neighbors, distances, count);
+            double difference = coordinate(city, axis) - coordinate(node, axis);
+            boolean leftFirst = difference < 0;
+            if (leftFirst) search(lo, mid, axis ^ 1, city, k, neighbors, distances, count);
+            else search(mid + 1, hi, axis ^ 1, city, k, neighbors, distances, count);
+            // The other side can only help if the splitting line is closer than the k-th neighbour
+            if (count[0] == k && difference * difference > distances[0]) return;
+            if (leftFirst) lo = mid + 1;
+            else hi = mid;
+            axis ^= 1;
+        }
+        for (int i = lo; i < hi; i++) offer(order[i], city, k, neighbors, distances, count);
+    }
+
+    // Adds a candidate to the heap of the k best if it is closer than the current k-th.
+    private void offer(int candidate, int city, int k, int[] neighbors, double[] distances, int[] count) {
+        if (candidate == city) return;
+        double dx = x[candidate] - x[city];
+        double dy = y[candidate] - y[city];
+        double distance = dx * dx + dy * dy;
+        if (count[0] < k) {
+            int i = count[0]++;
+            neighbors[i] = candidate;
+            distances[i] = distance;
+            // Sift up
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!farther(distances[i], neighbors[i], distances[parent], neighbors[parent])) break;
+                swap(neighbors, distances, i, parent);
+                i = parent;
+            }
+        } else if (farther(distances[0], neighbors[0], distance, candidate)) {
+            neighbors[0] = candidate;
+            distances[0] = distance;
+            siftDown(neighbors, distances, 0, k);
+        }
+    }
+
+    private static void siftDown(int[] neighbors, double[] distances, int i, int size) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) return;
+            if (child + 1 < size && farther(distances[child + 1], neighbors[child + 1], distances[child], neighbors[child]))
+                child++;
+            if (!farther(distances[child], neighbors[child], distances[i], neighbors[i])) return;
+            swap(neighbors, distances, i, child);
+            i = child;
+        }
+    }
+
+    // Orders candidates by distance, then by city number.
+    private static boolean farther(double distanceA, int cityA, double distanceB, int cityB) {
+        return distanceA > distanceB || (distanceA == distanceB && cityA > cityB);
+    }
+
+    private static void swap(int[] neighbors, double[] distances, int i, int j) {
+        int city = neighbors[i];
+        neighbors[i] = neighbors[j];
+        neighbors[j] = city;
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+    }
+}
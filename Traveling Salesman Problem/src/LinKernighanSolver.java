@@ -0,0 +1,356 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Heuristic solver for large instances built on Lin-Kernighan style variable-depth moves.
+ * The tour is an array with a position index, every step of a move is a 2-opt move
+ * applied as a segment reversal (always on the shorter side of the cycle), and
+ * only the nearest candidates of each city are tried. After the first descent the
+ * remaining time is spent on double-bridge kicks that are kept when they lead to a
+ * shorter tour (chained Lin-Kernighan). The travel prices have to be symmetric, the
+ * moves reverse segments and would never settle on an asymmetric matrix.
+ */
+public class LinKernighanSolver {
+    private static final int CANDIDATES_PER_CITY = 8;
+    // Maximum number of 2-opt steps chained into one move
+    private static final int MAX_DEPTH = 50;
+    // Longest segment moved by a kick
+    private static final int MAX_KICK_SEGMENT = 50;
+
+    private final int N, start;
+    private final DistanceMatrix distance;
+    private final List<Integer> tour = new ArrayList<>();
+    private int minTourCost = Integer.MAX_VALUE;
+    private boolean ranSolver = false;
+    private long timeLimitNanos = 1_000_000_000L;
+    private long seed = 0;
+    private int[] initialTour;
+
+    private NeighborLists candidates;
+    private int[] order, position;
+    private long cost;
+    // Don't-look bits kept as a queue of the cities that still have to be tried
+    private int[] queue;
+    private boolean[] queued;
+    private int head, queueSize;
+    // Reversals applied by the current move, as (first slot, length), so they can be undone
+    private final int[] undoSlot = new int[MAX_DEPTH];
+    private final int[] undoLength = new int[MAX_DEPTH];
+    private final int[] touched = new int[3 * MAX_DEPTH + 1];
+
+    public LinKernighanSolver(int start, int[][] distance) {
+        this(start, DistanceMatrix.wrap(distance));
+    }
+
+    /**
+     * Solver on any distance matrix backend, e.g. a TriangularDistanceMatrix or
+     * CoordinateDistanceMatrix for instances too large for an int[][]
+     * @param start int starting node
+     * @param distance DistanceMatrix graph
+     */
+    public LinKernighanSolver(int start, DistanceMatrix distance) {
+        N = distance.size();
+
+        if (N <= 4) throw new IllegalStateException("N <= 4 not yet supported.");
+        if (start < 0 || start >= N) throw new IllegalArgumentException("Invalid start node.");
+        if (!distance.isSymmetric())
+            throw new IllegalArgumentException("Lin-Kernighan needs symmetric travel prices.");
+
+        this.start = start;
+        this.distance = distance;
+    }
+
+    /**
+     * Sets how long solve() may run. The first descent stops at the limit as well,
+     * kicks are only tried while time is left
+     * @param millis long time budget in milliseconds
+     */
+    public void setTimeLimit(long millis) {
+        timeLimitNanos = millis * 1_000_000L;
+    }
+
+    /**
+     * Uses candidate lists built elsewhere instead of building them in solve()
+     * @param lists NeighborLists over the same cities
+     */
+    public void setCandidates(NeighborLists lists) {
+        if (lists.numberOfCities() != N)
+            throw new IllegalArgumentException("Neighbor lists cover " + lists.numberOfCities() + " cities, not " + N + ".");
+        candidates = lists;
+    }
+
+    // Sets the seed of the kicks, so that runs are reproducible.
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Starts from a given tour, e.g. the result of another solver, instead of a greedy edge tour
+     * @param startingTour List closed tour from start back to start
+     */
+    public void setInitialTour(List<Integer> startingTour) {
+        if (startingTour.size() != N + 1 || startingTour.get(0) != start || startingTour.get(N) != start)
+            throw new IllegalArgumentException("Tour must be a closed tour starting at node " + start + ".");
+        int[] candidate = new int[N];
+        boolean[] seen = new boolean[N];
+        for (int i = 0; i < N; i++) {
+            candidate[i] = startingTour.get(i);
+            if (seen[candidate[i]]) throw new IllegalArgumentException("Tour visits node " + candidate[i] + " twice.");
+            seen[candidate[i]] = true;
+        }
+        initialTour = candidate;
+    }
+
+    /**
+     * Starts from the path of a genome, e.g. the result of Ubermensch.optimize()
+     * @param genome SalesmanGenome tour starting at the same node
+     */
+    public void setInitialTour(SalesmanGenome genome) {
+        List<Integer> startingTour = new ArrayList<>();
+        startingTour.add(start);
+        startingTour.addAll(genome.getGenome());
+        startingTour.add(start);
+        setInitialTour(startingTour);
+    }
+
+    // Returns the best tour found, from start back to start.
+    public List<Integer> getTour() {
+        if (!ranSolver) solve();
+        return tour;
+    }
+
+    // Returns the cost of the best tour found.
+    public int getTourCost() {
+        if (!ranSolver) solve();
+        return minTourCost;
+    }
+
+    // Improves the tour until the time budget is used up and caches the result.
+    public void solve() {
+        if (ranSolver) return;
+        long deadline = System.nanoTime() + timeLimitNanos;
+        if (candidates == null) candidates = NeighborLists.of(distance, CANDIDATES_PER_CITY);
+        order = initialTour != null ? initialTour.clone()
+                : TourConstruction.rotate(new TourConstruction(distance, candidates).greedyEdge(), start);
+        position = new int[N];
+        for (int i = 0; i < N; i++) position[order[i]] = i;
+        cost = 0;
+        for (int i = 0; i < N; i++) cost += distance.get(order[i], order[(i + 1) % N]);
+        queue = new int[N];
+        queued = new boolean[N];
+
+        // First descent: Lin-Kernighan moves, then Or-opt, until neither finds anything
+        LocalSearch orOpt = new LocalSearch(distance, candidates);
+        while (true) {
+            for (int city : order) push(city);
+            linKernighan(deadline);
+            long before = cost;
+            orOpt.improve(order, 0);
+            for (int i = 0; i < N; i++) position[order[i]] = i;
+            cost = 0;
+            for (int i = 0; i < N; i++) cost += distance.get(order[i], order[(i + 1) % N]);
+            if (cost >= before || System.nanoTime() > deadline) break;
+        }
+
+        // Chained Lin-Kernighan: kick the local optimum and keep the result if it is shorter
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] best = order.clone();
+        long bestCost = cost;
+        while (System.nanoTime() < deadline) {
+            kick(random);
+            linKernighan(deadline);
+            if (cost < bestCost) {
+                bestCost = cost;
+                System.arraycopy(order, 0, best, 0, N);
+            } else if (cost > bestCost) {
+                System.arraycopy(best, 0, order, 0, N);
+                for (int i = 0; i < N; i++) position[order[i]] = i;
+                cost = bestCost;
+            }
+        }
+
+        minTourCost = (int) bestCost;
+        int offset = 0;
+        while (best[offset] != start) offset++;
+        for (int i = 0; i <= N; i++) tour.add(best[(offset + i) % N]);
+        ranSolver = true;
+    }
+
+    /**
+     * Runs Lin-Kernighan moves from the queued cities until the queue is empty
+     * @param deadline long System.nanoTime() after which the search stops
+     */
+    private void linKernighan(long deadline) {
+        int sinceCheck = 0;
+        while (queueSize > 0) {
+            if (++sinceCheck == 256) {
+                sinceCheck = 0;
+                if (System.nanoTime() > deadline) break;
+            }
+            int t1 = pop();
+            if (improveFrom(t1, true) || improveFrom(t1, false)) push(t1);
+        }
+        // Whatever was left is still a local optimum candidate next time
+        while (queueSize > 0) pop();
+    }
+
+    /**
+     * One variable-depth move starting by removing the edge from t1 to its successor
+     * (or predecessor). Each step adds an edge from the free end t2 to a candidate t3
+     * and removes the edge from t3 to t4, its neighbour towards t2, which is the
+     * reversal of the segment t2..t4. Steps are applied as they are chosen and the
+     * move is cut back to the step whose closed tour was shortest
+     * @param t1 int base city
+     * @param forward boolean true to start with the successor of t1
+     * @return boolean true if the tour got shorter
+     */
+    private boolean improveFrom(int t1, boolean forward) {
+        int t2 = forward ? next(t1) : previous(t1);
+        long gain = distance.get(t1, t2);
+        long bestClosedGain = 0;
+        int bestDepth = 0, depth = 0, touchedCount = 0;
+        touched[touchedCount++] = t1;
+
+        while (depth < MAX_DEPTH) {
+            // Orientation in which t2 follows t1
+            boolean ahead = next(t1) == t2;
+            int bestT3 = -1, bestT4 = -1;
+            long bestStepGain = Long.MIN_VALUE;
+            for (int rank = 0; rank < candidates.size(); rank++) {
+                int t3 = candidates.get(t2, rank);
+                long g1 = gain - distance.get(t2, t3);
+                // Candidates are sorted, later ones cannot keep the partial gain positive
+                if (g1 <= 0) break;
+                if (t3 == t1 || t3 == (ahead ? next(t2) : previous(t2))) continue;
+                int t4 = ahead ? previous(t3) : next(t3);
+                long stepGain = g1 + distance.get(t3, t4);
+                if (stepGain > bestStepGain) {
+                    bestStepGain = stepGain;
+                    bestT3 = t3;
+                    bestT4 = t4;
+                }
+            }
+            if (bestT3 < 0) break;
+
+            // Remove (t1, t2) and (t4, t3), add (t2, t3) and (t4, t1)
+            if (ahead) reverse(t2, bestT4, depth);
+            else reverse(bestT4, t2, depth);
+            depth++;
+            gain = bestStepGain;
+            touched[touchedCount++] = t2;
+            touched[touchedCount++] = bestT3;
+            touched[touchedCount++] = bestT4;
+            t2 = bestT4;
+            long closedGain = gain - distance.get(t2, t1);
+            if (closedGain > bestClosedGain) {
+                bestClosedGain = closedGain;
+                bestDepth = depth;
+            }
+        }
+
+        // Undo the steps after the best closing point
+        while (depth > bestDepth) {
+            depth--;
+            reverseSlots(undoSlot[depth], undoLength[depth]);
+        }
+        if (bestClosedGain <= 0) return false;
+        cost -= bestClosedGain;
+        for (int i = 0; i < touchedCount; i++) push(touched[i]);
+        return true;
+    }
+
+    /**
+     * Random double-bridge kick: two neighbouring segments of the tour swap places,
+     * which the 2-opt steps of Lin-Kernighan cannot undo in one move
+     * @param random SplittableRandom
+     */
+    private void kick(SplittableRandom random) {
+        int maxSegment = Math.min(MAX_KICK_SEGMENT, (N - 2) / 2);
+        int first = random.nextInt(N);
+        int lengthA = 1 + random.nextInt(maxSegment);
+        int lengthB = 1 + random.nextInt(maxSegment);
+        int before = order[(first + N - 1) % N];
+        int a1 = order[first], a2 = order[(first + lengthA - 1) % N];
+        int b1 = order[(first + lengthA) % N], b2 = order[(first + lengthA + lengthB - 1) % N];
+        int after = order[(first + lengthA + lengthB) % N];
+        cost += distance.get(before, b1) + distance.get(b2, a1) + distance.get(a2, after)
+                - distance.get(before, a1) - distance.get(a2, b1) - distance.get(b2, after);
+        // A B becomes B A by reversing A, B and then both together
+        reverseSlots(first, lengthA);
+        reverseSlots((first + lengthA) % N, lengthB);
+        reverseSlots(first, lengthA + lengthB);
+        push(before);
+        push(a1);
+        push(a2);
+        push(b1);
+        push(b2);
+        push(after);
+    }
+
+    /**
+     * Reverses the path walking forward from 'from' to 'to', or the rest of the
+     * cycle if that is shorter, and records the reversal for undoing
+     * @param from int first city
+     * @param to int last city
+     * @param step int index of the move step
+     */
+    private void reverse(int from, int to, int step) {
+        int i = position[from];
+        int length = position[to] - i;
+        if (length < 0) length += N;
+        length++;
+        if (2 * length > N) {
+            i = (position[to] + 1) % N;
+            length = N - length;
+        }
+        undoSlot[step] = i;
+        undoLength[step] = length;
+        reverseSlots(i, length);
+    }
+
+    // Reverses 'length' slots of the cyclic tour starting at slot i, keeping positions in step.
+    private void reverseSlots(int i, int length) {
+        int j = (i + length - 1) % N;
+        for (int swaps = length / 2; swaps > 0; swaps--) {
+            int a = order[i], b = order[j];
+            order[i] = b;
+            position[b] = i;
+            order[j] = a;
+            position[a] = j;
+            if (++i == N) i = 0;
+            if (--j < 0) j = N - 1;
+        }
+    }
+
+    private int next(int city) {
+        int i = position[city] + 1;
+        return order[i == N ? 0 : i];
+    }
+
+    private int previous(int city) {
+        int i = position[city] - 1;
+        return order[i < 0 ? N - 1 : i];
+    }
+
+    private void push(int city) {
+        if (queued[city]) return;
+        queued[city] = true;
+        queue[(head + queueSize++) % N] = city;
+    }
+
+    private int pop() {
+        int city = queue[head];
+        head = (head + 1) % N;
+        queueSize--;
+        queued[city] = false;
+        return city;
+    }
+}
+
+/*
+    Reference:
+    #1 Lin and Kernighan, An effective heuristic algorithm for the traveling-salesman problem (1973)
+    #2 Applegate, Cook and Rohe, Chained Lin-Kernighan for large traveling salesman problems (2003)
+    #3 Helsgaun, An effective implementation of the Lin-Kernighan traveling salesman heuristic (2000)
+ */
@@ -0,0 +1,270 @@
+/**
+ * 2-opt and Or-opt improvement of a single tour. Moves are only tried towards
+ * the candidates of NeighborLists, and cities whose neighbourhood did not change
+ * since they last failed to improve are skipped (don't-look bits), so a pass costs
+ * close to O(n * k) instead of O(n^2). Both moves need symmetric travel prices,
+ * on asymmetric ones the reversals would never settle, so those are rejected.
+ * An instance keeps scratch arrays for one tour at a time and must not be shared
+ * between threads.
+ */
+public class LocalSearch {
+    // Longest segment Or-opt moves to a new place
+    private static final int MAX_SEGMENT = 3;
+
+    private final DistanceMatrix travelPrices;
+    private final NeighborLists neighborLists;
+    private final int n;
+    // Cyclic tour, the slot of every city in it, and the queue of cities to look at
+    private final int[] tour, position, queue;
+    private final boolean[] queued;
+    private int head, queueSize;
+
+    public LocalSearch(int[][] travelPrices, NeighborLists neighborLists) {
+        this(DistanceMatrix.wrap(travelPrices), neighborLists);
+    }
+
+    public LocalSearch(DistanceMatrix travelPrices, NeighborLists neighborLists) {
+        if (!travelPrices.isSymmetric())
+            throw new IllegalArgumentException("Local search needs symmetric travel prices.");
+        this.travelPrices = travelPrices;
+        this.neighborLists = neighborLists;
+        n = travelPrices.size();
+        tour = new int[n];
+        position = new int[n];
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /**
+     * Improves a genome in place until no candidate move improves it
+     * or the budget of applied moves is used up
+     * @param salesman SalesmanGenome tour to improve
+     * @param moveBudget int maximum number of improving moves, 0 for no limit
+     * @return int number of moves applied
+     */
+    public int improve(SalesmanGenome salesman, int moveBudget) {
+        int[] genome = salesman.getPath();
+        tour[0] = salesman.startingCity;
+        System.arraycopy(genome, 0, tour, 1, n - 1);
+        int moves = improve(moveBudget);
+
+        // Rotate the cycle so that it starts at the starting city again
+        int offset = position[salesman.startingCity];
+        for (int i = 1; i < n; i++) {
+            genome[i - 1] = tour[(offset + i) % n];
+        }
+        salesman.updateFitness();
+        return moves;
+    }
+
+    /**
+     * Improves a closed tour given as an array of all n cities, in place
+     * @param order int[] cyclic tour, any rotation
+     * @param moveBudget int maximum number of improving moves, 0 for no limit
+     * @return int number of moves applied
+     */
+    public int improve(int[] order, int moveBudget) {
+        System.arraycopy(order, 0, tour, 0, n);
+        int moves = improve(moveBudget);
+        System.arraycopy(tour, 0, order, 0, n);
+        return moves;
+    }
+
+    private int improve(int moveBudget) {
+        for (int i = 0; i < n; i++) position[tour[i]] = i;
+        head = 0;
+        queueSize = 0;
+        for (int i = 0; i < n; i++) {
+            queued[tour[i]] = false;
+            push(tour[i]);
+        }
+        int moves = 0;
+        while (queueSize > 0 && (moveBudget <= 0 || moves < moveBudget)) {
+            int city = pop();
+            if (twoOpt(city) || orOpt(city)) {
+                moves++;
+                // Look at the city again, the improved tour may offer another move
+                push(city);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Tries 2-opt moves that add an edge from 'a' to one of its candidates.
+     * With b the successor of a and d the successor of candidate c, the edges
+     * (a, b) and (c, d) are replaced by (a, c) and (b, d); the same is tried
+     * in the predecessor direction
+     * @param a int city
+     * @return boolean true if a move was applied
+     */
+    private boolean twoOpt(int a) {
+        for (int direction = 0; direction < 2; direction++) {
+            boolean forward = direction == 0;
+            int b = forward ? next(a) : previous(a);
+            int removed = price(a, b);
+            for (int rank = 0; rank < neighborLists.size(); rank++) {
+                int c = neighborLists.get(a, rank);
+                int added = price(a, c);
+                // Candidates are sorted, so no later one can pay for the new edge either
+                if (added >= removed) break;
+                int d = forward ? next(c) : previous(c);
+                if (c == b || d == a) continue;
+                int delta = added + price(b, d) - removed - price(c, d);
+                if (delta < 0) {
+                    if (forward) reverse(b, c);
+                    else reverse(a, d);
+                    push(a);
+                    push(b);
+                    push(c);
+                    push(d);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries to move the segment of up to three cities starting at 'first'
+     * next to one of the candidates of its end cities, in either orientation
+     * @param first int first city of the segment
+     * @return boolean true if a move was applied
+     */
+    private boolean orOpt(int first) {
+        int last = first;
+        for (int length = 1; length <= MAX_SEGMENT && length < n - 2; length++) {
+            if (length > 1) last = next(last);
+            int before = previous(first), after = next(last);
+            int gain = price(before, first) + price(last, after) - price(before, after);
+            if (gain <= 0) continue;
+            for (int end = 0; end < 2; end++) {
+                int endpoint = end == 0 ? first : last;
+                for (int rank = 0; rank < neighborLists.size(); rank++) {
+                    int c = neighborLists.get(endpoint, rank);
+                    if (price(endpoint, c) >= gain) break;
+                    if (inSegment(c, first, length)) continue;
+                    // Insert between c and its successor, or between its predecessor and c
+                    for (int side = 0; side < 2; side++) {
+                        int left = side == 0 ? c : previous(c);
+                        int right = side == 0 ? next(c) : c;
+                        if (inSegment(left, first, length) || inSegment(right, first, length)) continue;
+                        int keep = price(left, first) + price(last, right);
+                        int flip = price(left, last) + price(first, right);
+                        int added = Math.min(keep, flip) - price(left, right);
+                        if (added < gain) {
+                            moveSegment(first, last, before, after, left, flip < keep);
+                            push(before);
+                            push(after);
+                            push(left);
+                            push(right);
+                            push(first);
+                            push(last);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // True if 'city' is one of the 'length' cities that start at 'first'.
+    private boolean inSegment(int city, int first, int length) {
+        int offset = position[city] - position[first];
+        if (offset < 0) offset += n;
+        return offset < length;
+    }
+
+    /**
+     * Reverses the tour between two cities, walking forward from 'from' to 'to'.
+     * The shorter side of the cycle is reversed, which gives the same cycle
+     * @param from int first city of the segment
+     * @param to int last city of the segment
+     */
+    private void reverse(int from, int to) {
+        int i = position[from], j = position[to];
+        int length = j - i;
+        if (length < 0) length += n;
+        length++;
+        if (2 * length > n) {
+            // Reverse the complement instead
+            int newI = j + 1 == n ? 0 : j + 1;
+            int newJ = i == 0 ? n - 1 : i - 1;
+            i = newI;
+            j = newJ;
+            length = n - length;
+        }
+        for (int swaps = length / 2; swaps > 0; swaps--) {
+            int a = tour[i], b = tour[j];
+            tour[i] = b;
+            position[b] = i;
+            tour[j] = a;
+            position[a] = j;
+            if (++i == n) i = 0;
+            if (--j < 0) j = n - 1;
+        }
+    }
+
+    /**
+     * Moves the segment first..last so that it follows 'left', optionally reversed.
+     * The tour reads before, first .. last, after .. left, right; reversing everything
+     * from 'first' to 'left' gives before, left .. after, last .. first, right. Two more
+     * reversals put the cities from 'after' to 'left' and, unless the segment is to
+     * end up reversed, the segment itself back in order. Each reversal takes the
+     * shorter side of the cycle, so the cost depends on the distance moved, not on n
+     * @param first int first city of the segment
+     * @param last int last city of the segment
+     * @param before int predecessor of the segment
+     * @param after int successor of the segment
+     * @param left int city the segment will follow
+     * @param reversed boolean true to insert the segment back to front
+     */
+    private void moveSegment(int first, int last, int before, int after, int left, boolean reversed) {
+        reverse(first, left);
+        // A reversal may have flipped the cycle instead, so walk each block from the end
+        // that now follows the city it stays attached to
+        if (left != after) {
+            if (previous(left) == before) reverse(left, after);
+            else reverse(after, left);
+        }
+        if (!reversed && first != last) {
+            if (previous(last) == left) reverse(last, first);
+            else reverse(first, last);
+        }
+    }
+
+    private int next(int city) {
+        int i = position[city] + 1;
+        return tour[i == n ? 0 : i];
+    }
+
+    private int previous(int city) {
+        int i = position[city] - 1;
+        return tour[i < 0 ? n - 1 : i];
+    }
+
+    private int price(int from, int to) {
+        return travelPrices.get(from, to);
+    }
+
+    private void push(int city) {
+        if (queued[city]) return;
+        queued[city] = true;
+        queue[(head + queueSize++) % n] = city;
+    }
+
+    private int pop() {
+        int city = queue[head];
+        head = (head + 1) % n;
+        queueSize--;
+        queued[city] = false;
+        return city;
+    }
+}
+
+/*
+    Reference:
+    #1 Bentley, Fast algorithms for geometric traveling salesman problems (1992)
+    #2 Johnson and McGeoch, The traveling salesman problem: a case study in local optimization (1997)
+ */
@@ -1,3 +1,6 @@
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 class Main {
@@ -31,7 +34,7 @@ class Main {
                         char selectionType = getSelectionType();
                         if (selectionType == 'r'){
                             System.out.println("\nAttempting to solve the TSP using ROULETTE approach in genetic algorithm...");
-                            Ubermensch genesis = new Ubermensch(vertices, SelectionType.ROULETTE, graph, 0, 0);
+                            Ubermensch genesis = new Ubermensch(vertices, SelectionType.ROULETTE, graph, 0, 0, System.nanoTime(), Runtime.getRuntime().availableProcessors());
                             long start = System.nanoTime();
                             SalesmanGenome fittest = genesis.optimize();
                             System.out.println(fittest);
@@ -40,7 +43,7 @@ class Main {
                         }
                         else {
                             System.out.println("\nAttempting to solve the TSP using TOURNAMENT approach in genetic algorithm...");
-                            Ubermensch genesis = new Ubermensch(vertices, SelectionType.TOURNAMENT, graph, 0, 0);
+                            Ubermensch genesis = new Ubermensch(vertices, SelectionType.TOURNAMENT, graph, 0, 0, System.nanoTime(), Runtime.getRuntime().availableProcessors());
                             long start = System.nanoTime();
                             SalesmanGenome fittest = genesis.optimize();
                             System.out.println(fittest);
@@ -62,6 +65,7 @@ class Main {
                         long start = System.nanoTime();
                         int resultMinWeight = naiveSolve.naiveApproachTSP(graph, duplicates, vertices);
                         long finish = System.nanoTime();
+                        System.out.println("Path: " + naiveSolve.getTour());
                         System.out.println("The minimum cost of the solution is " + resultMinWeight + ".");
                         System.out.println("Time taken to solve the problem: " + (finish - start) + " nanoseconds.\n");
                         hasRan = true;
@@ -76,7 +80,8 @@ class Main {
                     try{
                         System.out.println("\nAttempting to solve the TSP using Dynamic Programming approach...");
                         long start = System.nanoTime();
-                        DynamicProgrammingApproach DPApproach = new DynamicProgrammingApproach(0, graph);
+                        DynamicProgrammingApproach DPApproach = new DynamicProgrammingApproach(0, graph, Runtime.getRuntime().availableProcessors());
+                        System.out.println("Predicted memo table size: " + DPApproach.getPredictedMemoBytes() + " bytes (" + DPApproach.getMemoBackend() + " store).");
                         System.out.println("Path: " + DPApproach.getTour());
                         long finish = System.nanoTime();
                         System.out.println("Length: " + DPApproach.getTourCost());
@@ -89,6 +94,11 @@ class Main {
                         System.out.println("There are too many vertices!");
                         hasRan = false;
                     }
+                    catch (IllegalStateException i){
+                        System.out.println("Warning! " + i.getMessage());
+                        System.out.println("There are too many vertices!");
+                        hasRan = false;
+                    }
                     catch (OutOfMemoryError oom){
                         oom.printStackTrace();
                         System.out.println("Warning! The JVM is out of memory (Java Heap Space).");
@@ -96,6 +106,66 @@ class Main {
                         hasRan = false;
                     }
                     break;
+                case 'b':
+                    try{
+                        System.out.println("\nAttempting to solve the TSP using Branch and Bound approach...");
+                        long start = System.nanoTime();
+                        BranchAndBoundApproach BBApproach = new BranchAndBoundApproach(0, graph);
+                        System.out.println("Path: " + BBApproach.getTour());
+                        long finish = System.nanoTime();
+                        System.out.println("Length: " + BBApproach.getTourCost());
+                        System.out.println("Time taken to solve the problem: " + (finish - start) + " nanoseconds.\n");
+                        hasRan = true;
+                    } catch (OutOfMemoryError oom) {
+                        oom.printStackTrace();
+                        System.out.println("Warning! The JVM is out of memory (Java Heap Space).");
+                        System.out.println("There are too many vertices!");
+                        hasRan = false;
+                    }
+                    break;
+                case 'l':
+                    try{
+                        Path file = getFilePath();
+                        long start = System.nanoTime();
+                        DistanceMatrix instance = TsplibReader.read(file);
+                        long loaded = System.nanoTime();
+                        System.out.println("Loaded " + instance.size() + " cities in " + (loaded - start) + " nanoseconds.");
+                        List<Integer> path;
+                        int cost;
+                        if (instance.isSymmetric()) {
+                            System.out.println("\nAttempting to solve the TSP using Lin-Kernighan...");
+                            LinKernighanSolver LKSolver = new LinKernighanSolver(0, instance);
+                            LKSolver.setTimeLimit(10_000);
+                            cost = LKSolver.getTourCost();
+                            path = LKSolver.getTour();
+                        } else if (instance.size() <= 20) {
+                            // Lin-Kernighan only handles symmetric prices, small instances are solved exactly instead
+                            System.out.println("\nThe travel prices are asymmetric, attempting to solve the TSP using Dynamic Programming approach...");
+                            DynamicProgrammingApproach DPApproach = new DynamicProgrammingApproach(0, instance, Runtime.getRuntime().availableProcessors());
+                            cost = DPApproach.getTourCost();
+                            path = DPApproach.getTour();
+                        } else {
+                            System.out.println("\nThe travel prices are asymmetric, attempting to solve the TSP using TOURNAMENT approach in genetic algorithm...");
+                            Ubermensch genesis = new Ubermensch(instance.size(), SelectionType.TOURNAMENT, instance, 0, 0, System.nanoTime(), Runtime.getRuntime().availableProcessors());
+                            SalesmanGenome fittest = genesis.optimize();
+                            cost = fittest.getFitness();
+                            path = new ArrayList<>();
+                            path.add(0);
+                            path.addAll(fittest.getGenome());
+                            path.add(0);
+                        }
+                        long finish = System.nanoTime();
+                        if (instance.size() <= 100) System.out.println("Path: " + path);
+                        System.out.println("Length: " + cost);
+                        System.out.println("Time taken to solve the problem: " + (finish - loaded) + " nanoseconds.\n");
+                    } catch (UncheckedIOException | IllegalArgumentException | IllegalStateException e) {
+                        System.out.println("Warning! " + e.getMessage());
+                    } catch (OutOfMemoryError oom) {
+                        oom.printStackTrace();
+                        System.out.println("Warning! The JVM is out of memory (Java Heap Space).");
+                        System.out.println("There are too many vertices!");
+                    }
+                    break;
                 case 'h': optionList(); break;
                 case 'x': continueProgram = false;
             }
@@ -156,7 +226,9 @@ class Main {
         System.out.println("""
                 N - Naive Approach
                 D - Dynamic Programming Approach.
+                B - Branch and Bound Approach.
                 G - Genetic Algorithm.
+                L - Load a TSPLIB file and solve it with Lin-Kernighan.
                 H - Print Option List.
                 X - Exit Program.
                 """);
@@ -182,6 +254,21 @@ class Main {
         return mode;
     }
 
+    /**
+     * This method will prompt the user for the path of a TSPLIB file
+     * @return Path of an existing file
+     */
+    public static Path getFilePath() {
+        Scanner scanner = new Scanner(System.in);
+        System.out.print("Please enter the path of a TSPLIB file: ");
+        Path file = Path.of(scanner.nextLine().trim());
+        while (!Files.isRegularFile(file)) {
+            System.out.print("File not found. Please enter the path of a TSPLIB file: ");
+            file = Path.of(scanner.nextLine().trim());
+        }
+        return file;
+    }
+
     /**
      * This method will prompt the user for an answer whether he wants to work with a new graph or not
      * @return char Yes or No
@@ -213,7 +300,7 @@ class Main {
         selectedMode = selectedMode.toLowerCase();
         char mode = selectedMode.charAt(0);
 
-        while (mode != 'n' && mode != 'd' && mode != 'g' && mode != 'h' && mode != 'x') {
+        while (mode != 'n' && mode != 'd' && mode != 'b' && mode != 'g' && mode != 'l' && mode != 'h' && mode != 'x') {
             System.out.print("Invalid input. Please enter the command to see the specified method, or hit 'H' for command list.");
             selectedMode = scanner.next();
             selectedMode = selectedMode.toLowerCase();
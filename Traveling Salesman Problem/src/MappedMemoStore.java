@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memo store backed by a memory-mapped temporary file. Pages are loaded and
+ * written back by the operating system, so the table can be larger than both
+ * the Java heap and physical memory. The file is deleted when the store is closed.
+ * The file should live on a disk: java.io.tmpdir is a RAM-backed tmpfs on many
+ * Linux hosts, so the directory can be set with the system property tsp.memo.dir.
+ */
+public class MappedMemoStore implements MemoStore {
+    // System property naming the directory of the memo files
+    public static final String DIRECTORY_PROPERTY = "tsp.memo.dir";
+
+    private final long size;
+    private final Path file;
+    private final FileChannel channel;
+    private IntBuffer[] chunks;
+
+    // Memo file in the directory of tsp.memo.dir, or in java.io.tmpdir if it is not set.
+    public MappedMemoStore(long size) {
+        this(size, Path.of(System.getProperty(DIRECTORY_PROPERTY, System.getProperty("java.io.tmpdir"))));
+    }
+
+    /**
+     * @param size long number of int entries
+     * @param directory Path directory of the memo file, which may grow to 4 * size bytes
+     */
+    public MappedMemoStore(long size, Path directory) {
+        this.size = size;
+        try {
+            file = Files.createTempFile(directory, "held-karp-", ".memo");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create memo file in " + directory, e);
+        }
+        FileChannel opened = null;
+        boolean mapped = false;
+        try {
+            file.toFile().deleteOnExit();
+            opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            chunks = new IntBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = ((long) i << CHUNK_SHIFT) * Integer.BYTES;
+                long ints = Math.min(CHUNK_SIZE, size - ((long) i << CHUNK_SHIFT));
+                chunks[i] = opened.map(FileChannel.MapMode.READ_WRITE, offset, ints * Integer.BYTES)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+            mapped = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map memo file", e);
+        } finally {
+            // A half-mapped table is useless, don't leave a file of that size behind
+            if (!mapped) discard(opened, file);
+        }
+        channel = opened;
+    }
+
+    private static void discard(FileChannel channel, Path file) {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Deleting the file below is what matters
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // deleteOnExit still removes it
+        }
+    }
+
+    @Override
+    public int get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK);
+    }
+
+    @Override
+    public void set(long index, int value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    // The mapping itself is released once the buffers become unreachable
+    @Override
+    public void close() {
+        chunks = null;
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete memo file", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Where DynamicProgrammingApproach keeps its memo table.
+ */
+public enum MemoBackend {
+    AUTO,       // Picked from the predicted footprint when the solver runs
+    HEAP,       // Chunked int[] arrays on the Java heap
+    DIRECT,     // Off-heap direct ByteBuffers, no GC scanning; only used when asked for explicitly
+    MAPPED;     // Memory-mapped temporary file, bounded by disk rather than RAM, see MappedMemoStore
+
+    // Share of the free heap a memo table may take before AUTO moves it off the heap
+    private static final double HEAP_SHARE = 0.75;
+
+    /**
+     * This method picks a backend for a memo table of the given size.
+     * Tables that fit comfortably into the free heap stay there, larger ones
+     * are memory-mapped so that the OS page cache can hold (or spill) them.
+     * DIRECT is never picked: the -XX:MaxDirectMemorySize limit and the direct memory
+     * already in use are not visible through a public API, so a table that does not
+     * fit would only fail once it is allocated
+     * @param bytes long predicted footprint
+     * @return MemoBackend HEAP or MAPPED
+     */
+    public static MemoBackend select(long bytes) {
+        Runtime runtime = Runtime.getRuntime();
+        long freeHeap = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return bytes <= freeHeap * HEAP_SHARE ? HEAP : MAPPED;
+    }
+}
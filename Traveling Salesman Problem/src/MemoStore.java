@@ -0,0 +1,38 @@
+/**
+ * Storage for the Held-Karp memo table used by DynamicProgrammingApproach.
+ * Entries are addressed by a long index so that tables larger than one
+ * Java array (2^31 entries) can be stored. Implementations must allow
+ * concurrent reads and writes to distinct indices.
+ */
+public interface MemoStore extends AutoCloseable {
+    // Number of ints held by every chunk of the chunked stores (2^28 ints, 1 GiB)
+    int CHUNK_SHIFT = 28;
+    int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    int get(long index);
+
+    void set(long index, int value);
+
+    // Returns the number of entries in the store.
+    long size();
+
+    // Releases the memory or file behind the store.
+    @Override
+    void close();
+
+    /**
+     * This method allocates a memo store of the given backend
+     * @param backend MemoBackend HEAP, DIRECT or MAPPED (AUTO is resolved from the footprint)
+     * @param entries long number of int entries
+     * @return MemoStore
+     */
+    static MemoStore create(MemoBackend backend, long entries) {
+        if (backend == MemoBackend.AUTO) backend = MemoBackend.select(entries * Integer.BYTES);
+        switch (backend) {
+            case DIRECT: return new DirectMemoStore(entries);
+            case MAPPED: return new MappedMemoStore(entries);
+            default: return new HeapMemoStore(entries);
+        }
+    }
+}
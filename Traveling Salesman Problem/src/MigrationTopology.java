@@ -0,0 +1,4 @@
+public enum MigrationTopology {
+    RING,
+    RANDOM
+}
\ No newline at end of file
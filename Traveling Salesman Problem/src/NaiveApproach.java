@@ -1,30 +1,113 @@
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-public class NaiveApproach {
-    public int naiveApproachTSP(int[][] graph, int s, int vertices) {
+public class NaiveApproach implements TspSolver {
+    // (n - 1)! has to fit in a long for the permutation ranks
+    public static final int MAX_PARALLEL_VERTICES = 21;
 
-        ArrayList<Integer> vertex = new ArrayList<>();
-        // Initializing array list with symmetric fashion
-        for (int i = 0; i < vertices; i++)
-            if (i != s)
-                vertex.add(i);
+    private final List<Integer> tour = new ArrayList<>();
 
-        int min_path = Integer.MAX_VALUE;
+    // Returns the tour found by the last search, from s back to s.
+    public List<Integer> getTour() {
+        return tour;
+    }
 
-        do {
-            int curPathWeight = 0;
-            int k = s;
-            // Populate the array list with available vertices' weights
-            for (Integer integer : vertex) {
-                curPathWeight += graph[k][integer];
+    /**
+     * TspSolver entry point. Each call searches on its own NaiveApproach, so this
+     * instance can serve concurrent calls; getTour() is not changed by it
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return TspSolution optimal tour
+     */
+    @Override
+    public TspSolution solve(DistanceMatrix travelPrices, int startingCity) {
+        NaiveApproach search = new NaiveApproach();
+        int cost = search.naiveApproachTSP(travelPrices, startingCity);
+        return new TspSolution(search.getTour(), cost);
+    }
 
-                k = integer;
-            }
+    /**
+     * naiveApproachTSP on any distance matrix backend
+     * @param graph DistanceMatrix graph
+     * @param s int starting node
+     * @return int minimum cost of a Hamiltonian cycle
+     */
+    public int naiveApproachTSP(DistanceMatrix graph, int s) {
+        return naiveApproachTSP(graph.toArray(), s, graph.size());
+    }
 
-            min_path = Math.min(min_path, curPathWeight);
-        } while (findNextPermutation(vertex));
+    /**
+     * Exhaustive search for the cheapest Hamiltonian cycle through s.
+     * Orderings are extended depth-first while the cost of the current prefix is
+     * carried along, so each extension costs O(1). Once a prefix costs as much as
+     * the best complete tour found so far, every ordering below it is skipped.
+     * The search works on arrays allocated once per call. The best tour is
+     * available from getTour().
+     * @param graph int[][] graph
+     * @param s int starting node
+     * @param vertices int number of vertices
+     * @return int minimum cost of a Hamiltonian cycle
+     */
+    public int naiveApproachTSP(int[][] graph, int s, int vertices) {
+        Backtracking search = new Backtracking(graph, s, vertices);
+        search.path[0] = s;
+        search.visited[s] = true;
+        search.extend(1, 0);
 
-        return min_path;
+        tour.clear();
+        for (int v : search.bestPath) tour.add(v);
+        tour.add(s);
+        return search.minPath;
+    }
+
+    // State of one depth-first search, so the recursion passes only the depth and prefix cost.
+    private static final class Backtracking {
+        private final int[][] graph;
+        private final int s, vertices;
+        // Pruning on the prefix cost is only sound when no edge can lower it again
+        private final boolean prune;
+        private final int[] path, bestPath;
+        private final boolean[] visited;
+        private int minPath = Integer.MAX_VALUE;
+
+        Backtracking(int[][] graph, int s, int vertices) {
+            this.graph = graph;
+            this.s = s;
+            this.vertices = vertices;
+            path = new int[vertices];
+            bestPath = new int[vertices];
+            visited = new boolean[vertices];
+            boolean nonNegative = true;
+            for (int i = 0; i < vertices; i++)
+                for (int j = 0; j < vertices; j++)
+                    if (graph[i][j] < 0)
+                        nonNegative = false;
+            prune = nonNegative;
+        }
+
+        void extend(int depth, int prefixCost) {
+            int k = path[depth - 1];
+            if (depth == vertices) {
+                // Close the cycle back to the starting node
+                int curPathWeight = prefixCost + graph[k][s];
+                if (curPathWeight < minPath) {
+                    minPath = curPathWeight;
+                    System.arraycopy(path, 0, bestPath, 0, vertices);
+                }
+                return;
+            }
+            for (int v = 0; v < vertices; v++) {
+                if (visited[v]) continue;
+                int cost = prefixCost + graph[k][v];
+                if (prune && cost >= minPath) continue;
+                visited[v] = true;
+                path[depth] = v;
+                extend(depth + 1, cost);
+                visited[v] = false;
+            }
+        }
     }
 
     public static void swap(ArrayList<Integer> data, int left, int right) {
@@ -70,4 +153,253 @@ public class NaiveApproach {
         reverse(data, last + 1, data.size() - 1);
         return true;
     }
+
+    /**
+     * Parallel brute force over every closed tour starting and ending at s.
+     * The (n-1)! orderings of the other vertices are split into rank ranges;
+     * each ForkJoin task unranks the first permutation of its range and walks
+     * the rest with findNextPermutation on its own int[]. The best tour of each
+     * range is merged with a min-reduction and can be read with getTour().
+     * On symmetric graphs a tour and its mirror image cost the same, so the ranks
+     * only cover orderings whose first vertex is smaller than their last one:
+     * a rank picks that pair of end vertices and a permutation of the rest,
+     * which halves the number of orderings walked.
+     * @param graph int[][] graph
+     * @param s int starting node
+     * @param vertices int number of vertices
+     * @param parallelism int number of worker threads
+     * @return int minimum cost of a Hamiltonian cycle
+     */
+    public int naiveApproachTSPParallel(int[][] graph, int s, int vertices, int parallelism) {
+        if (vertices < 2) throw new IllegalArgumentException("At least two vertices are required.");
+        if (vertices > MAX_PARALLEL_VERTICES) throw new IllegalArgumentException("Too many vertices for brute force.");
+
+        int[] others = new int[vertices - 1];
+        for (int i = 0, k = 0; i < vertices; i++)
+            if (i != s)
+                others[k++] = i;
+
+        // A single other vertex has no mirror image
+        boolean symmetric = others.length > 1 && isSymmetric(graph, vertices);
+        long total = symmetric ? factorial(others.length) / 2 : factorial(others.length);
+        long grain = Math.max(1024, total / (parallelism * 16L));
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        RankResult best;
+        try {
+            best = pool.invoke(new RankRangeTask(graph, s, others, symmetric, 0, total, grain));
+        } finally {
+            pool.shutdown();
+        }
+
+        tour.clear();
+        tour.add(s);
+        for (int v : best.order) tour.add(v);
+        tour.add(s);
+        return best.cost;
+    }
+
+    // Cheapest tour of one rank range.
+    private static final class RankResult {
+        final int cost;
+        final int[] order;
+
+        RankResult(int cost, int[] order) {
+            this.cost = cost;
+            this.order = order;
+        }
+    }
+
+    private static final class RankRangeTask extends RecursiveTask<RankResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] graph;
+        private final int s;
+        private final int[] others;
+        private final boolean symmetric;
+        private final long from, to, grain;
+
+        RankRangeTask(int[][] graph, int s, int[] others, boolean symmetric, long from, long to, long grain) {
+            this.graph = graph;
+            this.s = s;
+            this.others = others;
+            this.symmetric = symmetric;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected RankResult compute() {
+            if (to - from > grain) {
+                long mid = (from + to) >>> 1;
+                RankRangeTask left = new RankRangeTask(graph, s, others, symmetric, from, mid, grain);
+                RankRangeTask right = new RankRangeTask(graph, s, others, symmetric, mid, to, grain);
+                right.fork();
+                RankResult a = left.compute();
+                RankResult b = right.join();
+                // Ties keep the lower rank so the result does not depend on the split
+                return b.cost < a.cost ? b : a;
+            }
+            return symmetric ? walkMirrorFree() : walkAll();
+        }
+
+        // Every ordering of the other vertices, rank by rank in lexicographic order.
+        private RankResult walkAll() {
+            int[] perm = unrankPermutation(others, from);
+            int[] bestOrder = perm.clone();
+            int minPath = Integer.MAX_VALUE;
+            for (long rank = from; rank < to; rank++) {
+                int curPathWeight = 0;
+                int k = s;
+                for (int v : perm) {
+                    curPathWeight += graph[k][v];
+                    k = v;
+                }
+                curPathWeight += graph[k][s];
+                if (curPathWeight < minPath) {
+                    minPath = curPathWeight;
+                    System.arraycopy(perm, 0, bestOrder, 0, perm.length);
+                }
+                if (!findNextPermutation(perm)) break;
+            }
+            return new RankResult(minPath, bestOrder);
+        }
+
+        // Orderings whose first vertex is smaller than their last one. Rank r selects
+        // the pair of end vertices r / (m-2)! and the permutation r % (m-2)! of the middle.
+        private RankResult walkMirrorFree() {
+            int m = others.length;
+            long block = factorial(m - 2);
+            // Decode the pair index into positions i < j of others
+            long pair = from / block;
+            int i = 0;
+            while (pair >= m - 1 - i) {
+                pair -= m - 1 - i;
+                i++;
+            }
+            int j = i + 1 + (int) pair;
+            int[] middle = new int[m - 2];
+            without(others, i, j, middle);
+            unrankPermutation(middle, from % block, middle);
+            int[] bestOrder = new int[m];
+            int minPath = Integer.MAX_VALUE;
+            for (long rank = from; rank < to; rank++) {
+                int first = others[i], last = others[j];
+                int curPathWeight = graph[s][first];
+                int k = first;
+                for (int v : middle) {
+                    curPathWeight += graph[k][v];
+                    k = v;
+                }
+                curPathWeight += graph[k][last] + graph[last][s];
+                if (curPathWeight < minPath) {
+                    minPath = curPathWeight;
+                    bestOrder[0] = first;
+                    System.arraycopy(middle, 0, bestOrder, 1, middle.length);
+                    bestOrder[m - 1] = last;
+                }
+                if (!findNextPermutation(middle)) {
+                    // Next pair of end vertices, its middle starts in increasing order
+                    if (++j == m) {
+                        i++;
+                        j = i + 1;
+                    }
+                    if (j >= m) break;
+                    without(others, i, j, middle);
+                }
+            }
+            return new RankResult(minPath, bestOrder);
+        }
+
+        // Fills rest with sorted without the elements at positions i and j.
+        private static void without(int[] sorted, int i, int j, int[] rest) {
+            for (int p = 0, k = 0; p < sorted.length; p++)
+                if (p != i && p != j)
+                    rest[k++] = sorted[p];
+        }
+    }
+
+    /**
+     * This method returns the permutation at position 'rank' in lexicographic
+     * order, using the factorial number system
+     * @param sorted int[] elements in increasing order
+     * @param rank long position of the permutation
+     * @return int[] permutation
+     */
+    public static int[] unrankPermutation(int[] sorted, long rank) {
+        int[] perm = new int[sorted.length];
+        unrankPermutation(sorted, rank, perm);
+        return perm;
+    }
+
+    /**
+     * Writes the permutation at position 'rank' into perm without allocating.
+     * The positions not chosen yet hold the free elements in increasing order,
+     * so each step moves the chosen one to the front of that pool
+     * @param sorted int[] elements in increasing order, may be perm itself
+     * @param rank long position of the permutation
+     * @param perm int[] receives the permutation
+     */
+    public static void unrankPermutation(int[] sorted, long rank, int[] perm) {
+        if (perm != sorted) System.arraycopy(sorted, 0, perm, 0, sorted.length);
+        for (int i = 0; i < perm.length; i++) {
+            long block = factorial(perm.length - 1 - i);
+            int index = (int) (rank / block);
+            rank %= block;
+            int chosen = perm[i + index];
+            System.arraycopy(perm, i, perm, i + 1, index);
+            perm[i] = chosen;
+        }
+    }
+
+    // Returns n! for n <= 20.
+    public static long factorial(int n) {
+        long result = 1;
+        for (int i = 2; i <= n; i++) result *= i;
+        return result;
+    }
+
+    private static boolean isSymmetric(int[][] graph, int vertices) {
+        for (int i = 0; i < vertices; i++)
+            for (int j = 0; j < i; j++)
+                if (graph[i][j] != graph[j][i])
+                    return false;
+        return true;
+    }
+
+    // Primitive variant of findNextPermutation(ArrayList) used by the parallel search.
+    public static boolean findNextPermutation(int[] data) {
+        if (data.length <= 1)
+            return false;
+        int last = data.length - 2;
+        // Find the longest non-increasing suffix and find the pivot
+        while (last >= 0) {
+            if (data[last] < data[last + 1]) break;
+            last--;
+        }
+        // Returning false if the search is complete
+        if (last < 0)
+            return false;
+
+        int nextGreater = data.length - 1;
+        // Find the right-most successor to the pivot
+        for (int i = data.length - 1; i > last; i--) {
+            if (data[i] > data[last]) {
+                nextGreater = i;
+                break;
+            }
+        }
+        // Swap the successor and the pivot
+        int temp = data[nextGreater];
+        data[nextGreater] = data[last];
+        data[last] = temp;
+        // Reverse suffix
+        for (int left = last + 1, right = data.length - 1; left < right; left++, right--) {
+            temp = data[left];
+            data[left] = data[right];
+            data[right] = temp;
+        }
+        return true;
+    }
 }
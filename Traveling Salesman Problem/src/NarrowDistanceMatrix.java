@@ -0,0 +1,109 @@
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Distance matrix for prices that span a small range. Every price is stored as its
+ * distance from the smallest price, in one byte if the span is below 256 and in two
+ * bytes if it is below 65536. Symmetric instances keep only the upper triangle, so
+ * Main.getMatrix's prices take one byte per pair instead of eight.
+ */
+public class NarrowDistanceMatrix implements DistanceMatrix {
+    // Largest span between the smallest and the largest price that can be stored
+    static final int MAX_SPAN = 0xFFFF;
+
+    private final int n;
+    private final int offset;
+    private final boolean symmetric;
+    // Exactly one of the two arrays is used
+    private final byte[] bytePrices;
+    private final short[] shortPrices;
+    // Triangular layout for symmetric instances, null for row-major
+    private final int[] rowStart;
+
+    public NarrowDistanceMatrix(int[][] prices) {
+        this(prices.length, (from, to) -> prices[from][to],
+                DistanceMatrix.isSymmetric(prices.length, (from, to) -> prices[from][to]));
+    }
+
+    /**
+     * @param size int number of cities
+     * @param price IntBinaryOperator price from the first city to the second
+     * @param symmetric boolean true to store only the upper triangle, the caller guarantees the prices are symmetric
+     */
+    public NarrowDistanceMatrix(int size, IntBinaryOperator price, boolean symmetric) {
+        this(size, price, symmetric, range(size, price, symmetric, true), range(size, price, symmetric, false));
+    }
+
+    /**
+     * @param size int number of cities
+     * @param price IntBinaryOperator price from the first city to the second
+     * @param symmetric boolean true to store only the upper triangle
+     * @param min int smallest price, already known to the caller
+     * @param max int largest price, already known to the caller
+     */
+    NarrowDistanceMatrix(int size, IntBinaryOperator price, boolean symmetric, int min, int max) {
+        if ((long) max - min > MAX_SPAN)
+            throw new IllegalArgumentException("Prices span " + ((long) max - min) + ", more than " + MAX_SPAN + ".");
+        n = size;
+        this.symmetric = symmetric;
+        offset = min;
+
+        long entries;
+        if (symmetric) {
+            rowStart = TriangularDistanceMatrix.rowStarts(size);
+            entries = rowStart[size];
+        } else {
+            rowStart = null;
+            entries = (long) size * size;
+            if (entries > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("Too many cities for a full matrix: " + size + ".");
+        }
+        bytePrices = (long) max - min <= 0xFF ? new byte[(int) entries] : null;
+        shortPrices = bytePrices == null ? new short[(int) entries] : null;
+        for (int from = 0; from < size; from++) {
+            for (int to = symmetric ? from : 0; to < size; to++) {
+                int slot = slot(from, to);
+                int value = price.applyAsInt(from, to) - offset;
+                if (bytePrices != null) bytePrices[slot] = (byte) value;
+                else shortPrices[slot] = (short) value;
+            }
+        }
+    }
+
+    // Smallest (or largest) price of the stored pairs.
+    private static int range(int size, IntBinaryOperator price, boolean symmetric, boolean smallest) {
+        int result = smallest ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        for (int from = 0; from < size; from++) {
+            for (int to = symmetric ? from : 0; to < size; to++) {
+                int value = price.applyAsInt(from, to);
+                result = smallest ? Math.min(result, value) : Math.max(result, value);
+            }
+        }
+        return result;
+    }
+
+    private int slot(int from, int to) {
+        if (rowStart == null) return from * n + to;
+        return from <= to ? rowStart[from] + to - from : rowStart[to] + from - to;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        int slot = slot(from, to);
+        return offset + (bytePrices != null ? bytePrices[slot] & 0xFF : shortPrices[slot] & 0xFFFF);
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    // Returns 1 or 2, the number of bytes used per stored price.
+    public int bytesPerPrice() {
+        return bytePrices != null ? 1 : 2;
+    }
+}
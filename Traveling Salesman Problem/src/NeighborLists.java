@@ -0,0 +1,129 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Candidate lists holding the k nearest cities of every city, nearest first.
+ * Local search only tries edges to these candidates, which keeps a pass over
+ * the tour close to linear. The lists are read-only once built and can be
+ * shared by any number of threads.
+ */
+public class NeighborLists {
+    private final int numberOfCities;
+    private final int k;
+    // neighbors[city * k + rank] is the rank-th nearest city
+    private final int[] neighbors;
+    // Cities per task when the lists are built from a k-d tree
+    private static final int SPATIAL_CHUNK = 1024;
+
+    /**
+     * Builds the lists from a travel-price matrix in O(n^2 k), keeping only the
+     * k best keys of every row instead of sorting the whole row
+     * @param travelPrices int[][] graph
+     * @param k int number of candidates per city, capped at n - 1
+     */
+    public NeighborLists(int[][] travelPrices, int k) {
+        this(DistanceMatrix.wrap(travelPrices), k);
+    }
+
+    /**
+     * Builds the lists from any distance matrix in O(n^2 k)
+     * @param travelPrices DistanceMatrix graph
+     * @param k int number of candidates per city, capped at n - 1
+     */
+    public NeighborLists(DistanceMatrix travelPrices, int k) {
+        numberOfCities = travelPrices.size();
+        this.k = Math.min(k, numberOfCities - 1);
+        neighbors = new int[numberOfCities * this.k];
+        long[] best = new long[this.k];
+        for (int city = 0; city < numberOfCities; city++) {
+            int count = 0;
+            for (int other = 0; other < numberOfCities; other++) {
+                if (other == city) continue;
+                // Price in the high bits, city in the low bits: ordering by key orders by price, then by city
+                long key = ((long) travelPrices.get(city, other) << 32) | other;
+                if (count == this.k && key >= best[count - 1]) continue;
+                // Insertion into the sorted list of the best keys so far
+                int slot = count < this.k ? count++ : count - 1;
+                while (slot > 0 && best[slot - 1] > key) {
+                    best[slot] = best[slot - 1];
+                    slot--;
+                }
+                best[slot] = key;
+            }
+            for (int rank = 0; rank < this.k; rank++) {
+                neighbors[city * this.k + rank] = (int) best[rank];
+            }
+        }
+    }
+
+    /**
+     * Builds the lists of a coordinate instance from a k-d tree in O(n log n),
+     * without looking at the n^2 pairs. The k nearest cities by straight-line
+     * distance are ordered by their price, then by city. The queries are split
+     * over the common ForkJoinPool
+     * @param matrix CoordinateDistanceMatrix with a metric that grows with the straight-line distance
+     * @param tree KdTree over the same cities
+     * @param k int number of candidates per city, capped at n - 1
+     */
+    public NeighborLists(CoordinateDistanceMatrix matrix, KdTree tree, int k) {
+        if (matrix.getMetric() == CoordinateMetric.GEO)
+            throw new IllegalArgumentException("GEO prices do not follow the straight-line distance.");
+        numberOfCities = matrix.size();
+        this.k = Math.min(k, numberOfCities - 1);
+        neighbors = new int[numberOfCities * this.k];
+        int chunks = (numberOfCities + SPATIAL_CHUNK - 1) / SPATIAL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] found = new int[this.k];
+            double[] distances = new double[this.k];
+            long[] keys = new long[this.k];
+            int end = Math.min(numberOfCities, (chunk + 1) * SPATIAL_CHUNK);
+            for (int city = chunk * SPATIAL_CHUNK; city < end; city++) {
+                tree.nearest(city, this.k, found, distances);
+                // Same order as the dense lists: price first, then city
+                for (int rank = 0; rank < this.k; rank++) {
+                    keys[rank] = ((long) matrix.get(city, found[rank]) << 32) | found[rank];
+                }
+                Arrays.sort(keys);
+                for (int rank = 0; rank < this.k; rank++) {
+                    neighbors[city * this.k + rank] = (int) keys[rank];
+                }
+            }
+        });
+    }
+
+    /**
+     * This method builds the lists the cheapest way the matrix allows: from a
+     * k-d tree for Euclidean-like coordinate instances, by scanning every row otherwise
+     * @param travelPrices DistanceMatrix graph
+     * @param k int number of candidates per city
+     * @return NeighborLists
+     */
+    public static NeighborLists of(DistanceMatrix travelPrices, int k) {
+        if (travelPrices instanceof CoordinateDistanceMatrix) {
+            CoordinateDistanceMatrix coordinates = (CoordinateDistanceMatrix) travelPrices;
+            if (coordinates.getMetric() != CoordinateMetric.GEO && coordinates.size() > 1)
+                return new NeighborLists(coordinates, new KdTree(coordinates), k);
+        }
+        return new NeighborLists(travelPrices, k);
+    }
+
+    // Returns the number of candidates of every city.
+    public int size() {
+        return k;
+    }
+
+    // Returns the number of cities covered by the lists.
+    public int numberOfCities() {
+        return numberOfCities;
+    }
+
+    /**
+     * Returns a candidate of a city
+     * @param city int
+     * @param rank int 0 for the nearest candidate
+     * @return int candidate city
+     */
+    public int get(int city, int rank) {
+        return neighbors[city * k + rank];
+    }
+}
@@ -1,8 +1,10 @@
 import java.util.*;
 
 public class SalesmanGenome implements Comparable<SalesmanGenome> {
-    List<Integer> genome;
-    int[][] travelPrices;
+    // Path without the starting city, one slot per remaining city.
+    // Kept as a primitive array so that evaluation and copying never box.
+    int[] genome;
+    DistanceMatrix travelPrices;
     int startingCity;
     int numberOfCities;
     int fitness;
@@ -15,13 +17,53 @@ public class SalesmanGenome implements Comparable<SalesmanGenome> {
      * @param startingCity int starting node
      */
     public SalesmanGenome(List<Integer> permutationOfCities, int numberOfCities, int[][] travelPrices, int startingCity){
-        genome = permutationOfCities;
+        this(permutationOfCities, numberOfCities, DistanceMatrix.wrap(travelPrices), startingCity);
+    }
+
+    /**
+     * User defined Genome size
+     * @param permutationOfCities List<Integer> ways to traverse through the nodes
+     * @param numberOfCities int vertices
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     */
+    public SalesmanGenome(List<Integer> permutationOfCities, int numberOfCities, DistanceMatrix travelPrices, int startingCity){
+        genome = new int[permutationOfCities.size()];
+        for (int i = 0; i < genome.length; i++) {
+            genome[i] = permutationOfCities.get(i);
+        }
         this.travelPrices = travelPrices;
         this.startingCity = startingCity;
         this.numberOfCities = numberOfCities;
         fitness = this.calculateFitness();  // Cost of taking a certain path
     }
 
+    /**
+     * Genome that takes ownership of the given path array
+     * @param permutationOfCities int[] ways to traverse through the nodes, without the starting city
+     * @param numberOfCities int vertices
+     * @param travelPrices int[][] graph
+     * @param startingCity int starting node
+     */
+    public SalesmanGenome(int[] permutationOfCities, int numberOfCities, int[][] travelPrices, int startingCity){
+        this(permutationOfCities, numberOfCities, DistanceMatrix.wrap(travelPrices), startingCity);
+    }
+
+    /**
+     * Genome that takes ownership of the given path array
+     * @param permutationOfCities int[] ways to traverse through the nodes, without the starting city
+     * @param numberOfCities int vertices
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     */
+    public SalesmanGenome(int[] permutationOfCities, int numberOfCities, DistanceMatrix travelPrices, int startingCity){
+        genome = permutationOfCities;
+        this.travelPrices = travelPrices;
+        this.startingCity = startingCity;
+        this.numberOfCities = numberOfCities;
+        fitness = this.calculateFitness();
+    }
+
     /**
      * This method will calculate the actual cost of a chosen path
      * @return int total cost of a path
@@ -31,37 +73,215 @@ public class SalesmanGenome implements Comparable<SalesmanGenome> {
         int currentCity = startingCity;
         // Calculate the cost of a chosen path
         for ( int gene : genome) {
-            fitness += travelPrices[currentCity][gene];
+            fitness += travelPrices.get(currentCity, gene);
             currentCity = gene;
         }
 
         // Add the cost of going back to the starting node to complete the Hamiltonian Cycle
         // The genome is missing the starting city and the starting index of 0,
         // hence minus 2 from the node count
-        fitness += travelPrices[genome.get(numberOfCities-2)][startingCity];
+        fitness += travelPrices.get(genome[numberOfCities-2], startingCity);
         return fitness;
     }
 
+    /**
+     * Re-evaluates the cached fitness after the path array was changed in place
+     */
+    public void updateFitness(){
+        fitness = calculateFitness();
+    }
+
+    /**
+     * Returns the city at a slot of the path, slots before the first and after
+     * the last one are the starting city that closes the cycle
+     * @param index int slot, -1 to genome.length
+     * @return int city
+     */
+    private int cityAt(int index){
+        return index < 0 || index >= genome.length ? startingCity : genome[index];
+    }
+
+    private int price(int from, int to){
+        return travelPrices.get(from, to);
+    }
+
+    /**
+     * Change in fitness if the cities at slots i and j were swapped.
+     * Only the (at most four) edges touching the two slots are evaluated
+     * @param i int slot
+     * @param j int slot
+     * @return int new fitness minus current fitness
+     */
+    public int swapDelta(int i, int j){
+        if (i == j) return 0;
+        if (i > j) { int temp = i; i = j; j = temp; }
+        int before = cityAt(i - 1), a = genome[i], b = genome[j], after = cityAt(j + 1);
+        if (j == i + 1) {
+            return price(before, b) + price(b, a) + price(a, after)
+                    - price(before, a) - price(a, b) - price(b, after);
+        }
+        int afterA = genome[i + 1], beforeB = genome[j - 1];
+        return price(before, b) + price(b, afterA) + price(beforeB, a) + price(a, after)
+                - price(before, a) - price(a, afterA) - price(beforeB, b) - price(b, after);
+    }
+
+    /**
+     * Swaps the cities at slots i and j and updates the fitness in O(1)
+     * @param i int slot
+     * @param j int slot
+     */
+    public void swap(int i, int j){
+        fitness += swapDelta(i, j);
+        int temp = genome[i];
+        genome[i] = genome[j];
+        genome[j] = temp;
+    }
+
+    /**
+     * Change in fitness of a 2-opt move that reverses the slots i..j.
+     * For symmetric travel prices only the two edges at the ends of the segment
+     * change, O(1). For asymmetric prices the edges inside the segment are walked
+     * in the other direction as well, which adds O(j - i)
+     * @param i int first slot of the segment
+     * @param j int last slot of the segment
+     * @return int new fitness minus current fitness
+     */
+    public int reverseDelta(int i, int j){
+        if (i > j) { int temp = i; i = j; j = temp; }
+        int before = cityAt(i - 1), first = genome[i], last = genome[j], after = cityAt(j + 1);
+        int delta = price(before, last) + price(first, after) - price(before, first) - price(last, after);
+        if (!travelPrices.isSymmetric()) {
+            for (int k = i; k < j; k++) {
+                delta += price(genome[k + 1], genome[k]) - price(genome[k], genome[k + 1]);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Reverses the slots i..j (2-opt move) and updates the fitness
+     * without walking the rest of the path
+     * @param i int first slot of the segment
+     * @param j int last slot of the segment
+     */
+    public void reverse(int i, int j){
+        if (i > j) { int temp = i; i = j; j = temp; }
+        fitness += reverseDelta(i, j);
+        for (; i < j; i++, j--) {
+            int temp = genome[i];
+            genome[i] = genome[j];
+            genome[j] = temp;
+        }
+    }
+
+    /**
+     * Change in fitness of an insertion move that takes the city at slot 'from'
+     * out of the path and puts it back so that it ends up at slot 'to'
+     * @param from int slot of the moved city
+     * @param to int slot the city ends up at
+     * @return int new fitness minus current fitness
+     */
+    public int moveDelta(int from, int to){
+        if (from == to) return 0;
+        int city = genome[from], before = cityAt(from - 1), after = cityAt(from + 1);
+        // Neighbours at the insertion point, named by their slots before the move
+        int left = to < from ? cityAt(to - 1) : cityAt(to);
+        int right = to < from ? cityAt(to) : cityAt(to + 1);
+        return price(before, after) - price(before, city) - price(city, after)
+                + price(left, city) + price(city, right) - price(left, right);
+    }
+
+    /**
+     * Moves the city at slot 'from' to slot 'to' (insertion move), shifting the
+     * cities in between by one, and updates the fitness from the changed edges
+     * @param from int slot of the moved city
+     * @param to int slot the city ends up at
+     */
+    public void move(int from, int to){
+        if (from == to) return;
+        fitness += moveDelta(from, to);
+        int city = genome[from];
+        if (from < to) {
+            System.arraycopy(genome, from + 1, genome, from, to - from);
+        } else {
+            System.arraycopy(genome, to, genome, to + 1, from - to);
+        }
+        genome[to] = city;
+    }
+
+    /**
+     * Overwrites this genome with the path and fitness of another genome of the same size,
+     * so that pooled genomes can be reused instead of allocated
+     * @param other SalesmanGenome source
+     */
+    public void copyFrom(SalesmanGenome other){
+        System.arraycopy(other.genome, 0, genome, 0, genome.length);
+        fitness = other.fitness;
+    }
+
     /**
      * This method generates a random genome that are permutations of the list of cities,
      * except the starting city. Therefore, the method adds them all to a list and shuffles
-     * @return List
+     * @return int[]
      */
-    private List<Integer> randomSalesman(){
+    private int[] randomSalesman(){
         List<Integer> result = new ArrayList<>();
+        for (int city : citiesInOrder()) result.add(city);
+        Collections.shuffle(result);
+        int[] shuffled = new int[result.size()];
+        for (int i = 0; i < shuffled.length; i++) shuffled[i] = result.get(i);
+        return shuffled;
+    }
+
+    // Returns every city except the starting city, in increasing order.
+    private int[] citiesInOrder(){
+        int[] result = new int[numberOfCities - 1];
+        int k = 0;
         for(int i = 0; i < numberOfCities; i++) {
             if(i != startingCity)
-                result.add(i);
+                result[k++] = i;
         }
-        Collections.shuffle(result);
         return result;
     }
 
     /**
-     * Getter method for Genome
+     * Getter method for Genome. The list is a view of the path array: set() writes
+     * through and updates the fitness, so e.g. Collections.swap(getGenome(), i, j)
+     * still works. Every element is boxed and every set() recomputes the fitness,
+     * hot loops should use getPath() and the delta methods instead
      * @return List of genomes (solution path)
      */
     public List<Integer> getGenome() {
+        return new GenomeView();
+    }
+
+    // Fixed-size list over the path array, changes to it keep the fitness up to date.
+    private final class GenomeView extends AbstractList<Integer> implements RandomAccess {
+        @Override
+        public Integer get(int index) {
+            return genome[index];
+        }
+
+        @Override
+        public Integer set(int index, Integer city) {
+            int previous = genome[index];
+            genome[index] = city;
+            fitness = calculateFitness();
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return genome.length;
+        }
+    }
+
+    /**
+     * Getter method for the path array itself. Changes to it must be
+     * followed by updateFitness()
+     * @return int[] path without the starting city
+     */
+    public int[] getPath() {
         return genome;
     }
 
@@ -111,12 +331,65 @@ public class SalesmanGenome implements Comparable<SalesmanGenome> {
      * @param startingCity int starting node
      */
     public SalesmanGenome(int numberOfCities, int[][] travelPrices, int startingCity){
+        this(numberOfCities, DistanceMatrix.wrap(travelPrices), startingCity);
+    }
+
+    /**
+     * Random genome size Genetic Algorithm Constructor
+     * @param numberOfCities int vertices
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     */
+    public SalesmanGenome(int numberOfCities, DistanceMatrix travelPrices, int startingCity){
         this.travelPrices = travelPrices;
         this.startingCity = startingCity;
         this.numberOfCities = numberOfCities;
         genome = randomSalesman();
         fitness = this.calculateFitness();
     }
+
+    /**
+     * Random genome drawn from the given stream, so that worker threads
+     * can build genomes without sharing a Random
+     * @param numberOfCities int vertices
+     * @param travelPrices int[][] graph
+     * @param startingCity int starting node
+     * @param random SplittableRandom stream owned by the calling thread
+     */
+    public SalesmanGenome(int numberOfCities, int[][] travelPrices, int startingCity, SplittableRandom random){
+        this(numberOfCities, DistanceMatrix.wrap(travelPrices), startingCity, random);
+    }
+
+    /**
+     * Random genome drawn from the given stream, so that worker threads
+     * can build genomes without sharing a Random
+     * @param numberOfCities int vertices
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @param random SplittableRandom stream owned by the calling thread
+     */
+    public SalesmanGenome(int numberOfCities, DistanceMatrix travelPrices, int startingCity, SplittableRandom random){
+        this.travelPrices = travelPrices;
+        this.startingCity = startingCity;
+        this.numberOfCities = numberOfCities;
+        genome = citiesInOrder();
+        randomize(random);
+    }
+
+    /**
+     * Replaces the path with a new random permutation (Fisher-Yates shuffle)
+     * and re-evaluates the fitness
+     * @param random SplittableRandom stream owned by the calling thread
+     */
+    public void randomize(SplittableRandom random){
+        for (int i = genome.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = genome[i];
+            genome[i] = genome[j];
+            genome[j] = temp;
+        }
+        fitness = this.calculateFitness();
+    }
 }
 
 /*
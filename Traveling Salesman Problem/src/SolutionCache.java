@@ -0,0 +1,415 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of solved instances, keyed by a 128-bit fingerprint of the prices and the
+ * starting city, so a repeated instance costs one pass over its prices instead of a
+ * solver run. With relabelling normalization the cities are first put in a canonical
+ * order, sorted by a signature of their sorted price row (by their coordinates for a
+ * CoordinateDistanceMatrix), so the same instance with its cities numbered differently
+ * hits the same entry. If two cities share a signature the order is not unique and the
+ * instance is keyed as given. Entries are evicted least recently used first, once
+ * either the number of entries or their estimated size in bytes exceeds its bound.
+ * All methods are thread-safe; concurrent misses on the same instance solve it once.
+ */
+public class SolutionCache {
+    // Rough footprint of one entry besides its tour: key, map node and array headers
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int FILE_MAGIC = 0x54535043;  // "TSPC"
+    private static final int FILE_VERSION = 1;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final boolean normalizeRelabelling;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param maxEntries int largest number of cached solutions
+     * @param maxBytes long largest estimated size of the cached solutions
+     * @param normalizeRelabelling boolean true to also hit instances whose cities are numbered differently
+     */
+    public SolutionCache(int maxEntries, long maxBytes, boolean normalizeRelabelling) {
+        if (maxEntries < 1 || maxBytes < 1) throw new IllegalArgumentException("Cache bounds must be positive.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.normalizeRelabelling = normalizeRelabelling;
+    }
+
+    /**
+     * Returns the cached solution of an instance, or solves and caches it. While one
+     * thread solves an instance, other threads asking for it wait for that result
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @param solver TspSolver used on a miss
+     * @return TspSolution in the city numbers of travelPrices
+     */
+    public TspSolution computeIfAbsent(DistanceMatrix travelPrices, int startingCity, TspSolver solver) {
+        Key key = key(travelPrices, startingCity);
+        Entry cached = lookup(key);
+        if (cached != null) return cached.decode(key);
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join().decode(key);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                throw e;
+            }
+        }
+        try {
+            // Another thread may have stored the instance between the lookup and putIfAbsent
+            Entry stored = peek(key);
+            if (stored != null) {
+                mine.complete(stored);
+                return stored.decode(key);
+            }
+            TspSolution solution = solver.solve(travelPrices, startingCity);
+            Entry entry = Entry.encode(solution, key);
+            store(key, entry);
+            mine.complete(entry);
+            return solution;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Looks an instance up without solving it
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return TspSolution in the city numbers of travelPrices, null on a miss
+     */
+    public TspSolution get(DistanceMatrix travelPrices, int startingCity) {
+        Key key = key(travelPrices, startingCity);
+        Entry cached = lookup(key);
+        return cached == null ? null : cached.decode(key);
+    }
+
+    /**
+     * Caches a solution found elsewhere, e.g. by a solver run outside the cache
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @param solution TspSolution closed tour from startingCity
+     */
+    public void put(DistanceMatrix travelPrices, int startingCity, TspSolution solution) {
+        Key key = key(travelPrices, startingCity);
+        store(key, Entry.encode(solution, key));
+    }
+
+    private synchronized Entry lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) misses++;
+        else hits++;
+        return entry;
+    }
+
+    // Looks a key up without counting a hit or a miss.
+    private synchronized Entry peek(Key key) {
+        return entries.get(key);
+    }
+
+    private synchronized void store(Key key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) bytes -= previous.bytes();
+        bytes += entry.bytes();
+        // Evict least recently used entries, never the one just stored
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && entries.size() > 1) {
+            Entry evicted = eldest.next();
+            bytes -= evicted.bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Removes every entry, the hit and miss counts are kept.
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Returns the estimated size of the cached solutions in bytes.
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Returns hits divided by lookups, 0 before the first lookup.
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d entries, %d bytes, %d hits, %d misses (hit rate %.3f), %d evictions",
+                entries.size(), bytes, hits, misses, getHitRate(), evictions);
+    }
+
+    /**
+     * Writes every entry to a file, least recently used first. The file is written
+     * next to the target and then moved over it, so a crash never leaves half a file
+     * @param file Path of the cache file
+     */
+    public void save(Path file) {
+        List<Map.Entry<Key, Entry>> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.entrySet());
+        }
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeBoolean(normalizeRelabelling);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<Key, Entry> cached : snapshot) {
+                Key key = cached.getKey();
+                out.writeLong(key.high);
+                out.writeLong(key.low);
+                out.writeInt(key.size);
+                out.writeInt(key.start);
+                out.writeInt(cached.getValue().cost);
+                for (int city : cached.getValue().tour) out.writeInt(city);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file + ".", e);
+        }
+        try {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replace " + file + ".", e);
+        }
+    }
+
+    /**
+     * Adds the entries of a file written by save(). The file must have been written by
+     * a cache with the same relabelling setting, since the keys depend on it
+     * @param file Path of the cache file
+     * @return int number of entries read
+     */
+    public int load(Path file) {
+        int count;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION)
+                throw new IllegalArgumentException(file + " is not a solution cache file.");
+            if (in.readBoolean() != normalizeRelabelling)
+                throw new IllegalArgumentException(file + " was written with a different relabelling setting.");
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Key key = new Key(in.readLong(), in.readLong(), in.readInt(), in.readInt(), null);
+                int cost = in.readInt();
+                int[] tour = new int[key.size + 1];
+                for (int j = 0; j < tour.length; j++) tour[j] = in.readInt();
+                store(key, new Entry(tour, cost));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file + ".", e);
+        }
+        return count;
+    }
+
+    // Fingerprint of an instance, in canonical city order if relabelling is normalized.
+    private Key key(DistanceMatrix travelPrices, int startingCity) {
+        int n = travelPrices.size();
+        if (startingCity < 0 || startingCity >= n) throw new IllegalArgumentException("Invalid start node.");
+        int[] order = normalizeRelabelling ? canonicalOrder(travelPrices) : null;
+        int start = startingCity;
+        if (order != null) {
+            for (int i = 0; i < n; i++) {
+                if (order[i] == startingCity) start = i;
+            }
+        }
+        Fingerprint fingerprint = new Fingerprint(n);
+        if (travelPrices instanceof CoordinateDistanceMatrix) {
+            // The coordinates and metric determine every price, hashing them is O(n)
+            CoordinateDistanceMatrix coordinates = (CoordinateDistanceMatrix) travelPrices;
+            fingerprint.add(coordinates.getMetric().ordinal());
+            for (int i = 0; i < n; i++) {
+                int city = order == null ? i : order[i];
+                fingerprint.add(Double.doubleToLongBits(coordinates.getX(city)));
+                fingerprint.add(Double.doubleToLongBits(coordinates.getY(city)));
+            }
+        } else {
+            fingerprint.add(-1);
+            for (int i = 0; i < n; i++) {
+                int from = order == null ? i : order[i];
+                for (int j = 0; j < n; j++) {
+                    fingerprint.add(travelPrices.get(from, order == null ? j : order[j]));
+                }
+            }
+        }
+        return new Key(fingerprint.high, fingerprint.low, n, start, order);
+    }
+
+    /**
+     * Orders the cities by a signature that does not depend on their numbers: the
+     * sorted prices of their row (and column, if asymmetric), or their coordinates
+     * @param travelPrices DistanceMatrix graph
+     * @return int[] order[i] is the city at canonical position i, null if two cities share a signature
+     */
+    private static int[] canonicalOrder(DistanceMatrix travelPrices) {
+        int n = travelPrices.size();
+        long[] signatures = new long[n];
+        if (travelPrices instanceof CoordinateDistanceMatrix) {
+            CoordinateDistanceMatrix coordinates = (CoordinateDistanceMatrix) travelPrices;
+            for (int city = 0; city < n; city++) {
+                Fingerprint signature = new Fingerprint(2);
+                signature.add(Double.doubleToLongBits(coordinates.getX(city)));
+                signature.add(Double.doubleToLongBits(coordinates.getY(city)));
+                signatures[city] = signature.high;
+            }
+        } else {
+            boolean symmetric = travelPrices.isSymmetric();
+            int[] row = new int[n];
+            for (int city = 0; city < n; city++) {
+                Fingerprint signature = new Fingerprint(n);
+                for (int other = 0; other < n; other++) row[other] = travelPrices.get(city, other);
+                Arrays.sort(row);
+                for (int price : row) signature.add(price);
+                if (!symmetric) {
+                    for (int other = 0; other < n; other++) row[other] = travelPrices.get(other, city);
+                    Arrays.sort(row);
+                    for (int price : row) signature.add(price);
+                }
+                signatures[city] = signature.high;
+            }
+        }
+        long[] sorted = signatures.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < n; i++) {
+            if (sorted[i] == sorted[i - 1]) return null;
+        }
+        // Signatures are distinct, so each one finds the canonical position of its city
+        int[] order = new int[n];
+        for (int city = 0; city < n; city++) order[Arrays.binarySearch(sorted, signatures[city])] = city;
+        return order;
+    }
+
+    // Two independent 64-bit multiply-xorshift hashes, together a 128-bit fingerprint.
+    private static final class Fingerprint {
+        long high = 0x9E3779B97F4A7C15L;
+        long low = 0xC2B2AE3D27D4EB4FL;
+
+        Fingerprint(int size) {
+            add(size);
+        }
+
+        void add(long value) {
+            high = mix(high ^ value) * 0xFF51AFD7ED558CCDL;
+            low = Long.rotateLeft(low + value * 0xC4CEB9FE1A85EC53L, 31) * 0x9E3779B97F4A7C15L;
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            return h ^ (h >>> 29);
+        }
+    }
+
+    private static final class Key {
+        final long high, low;
+        final int size, start;
+        // Canonical position to city of the instance this key was built from, not part of equality
+        final int[] order;
+
+        Key(long high, long low, int size, int start, int[] order) {
+            this.high = high;
+            this.low = low;
+            this.size = size;
+            this.start = start;
+            this.order = order;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return high == key.high && low == key.low && size == key.size && start == key.start;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high) * 31 + start;
+        }
+    }
+
+    // A cached tour in canonical city numbers, closed at the canonical start.
+    private static final class Entry {
+        final int[] tour;
+        final int cost;
+
+        Entry(int[] tour, int cost) {
+            this.tour = tour;
+            this.cost = cost;
+        }
+
+        static Entry encode(TspSolution solution, Key key) {
+            List<Integer> cities = solution.getTour();
+            if (cities.size() != key.size + 1)
+                throw new IllegalArgumentException("Solution must be a closed tour through all " + key.size + " cities.");
+            int[] position = null;
+            if (key.order != null) {
+                position = new int[key.size];
+                for (int i = 0; i < key.size; i++) position[key.order[i]] = i;
+            }
+            int[] tour = new int[cities.size()];
+            for (int i = 0; i < tour.length; i++) {
+                tour[i] = position == null ? cities.get(i) : position[cities.get(i)];
+            }
+            return new Entry(tour, solution.getCost());
+        }
+
+        TspSolution decode(Key key) {
+            List<Integer> cities = new ArrayList<>(tour.length);
+            for (int city : tour) cities.add(key.order == null ? city : key.order[city]);
+            return new TspSolution(cities, cost);
+        }
+
+        long bytes() {
+            return ENTRY_OVERHEAD + (long) tour.length * Integer.BYTES;
+        }
+    }
+}
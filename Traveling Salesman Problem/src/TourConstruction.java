@@ -0,0 +1,526 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Construction heuristics that build a complete tour in one pass: nearest neighbour,
+ * greedy edge, a Hilbert space-filling curve and a Christofides-style tour. Their tours
+ * are within roughly 10 to 25 percent of the optimum and serve as seeds for the genetic
+ * algorithm and the local search, and as first upper bounds for the exact solvers.
+ * Tours are int arrays holding every city once, the closing edge back to the first
+ * city is implied. All methods only read shared state, so one instance can be used by
+ * any number of threads at once.
+ */
+public class TourConstruction {
+    private static final int CANDIDATES_PER_CITY = 10;
+    // Christofides builds a spanning tree over all n^2 pairs, above this size best() skips it
+    private static final int CHRISTOFIDES_LIMIT = 5000;
+    // Chance that a randomized nearest neighbour tour takes the second-nearest free city
+    private static final double DETOUR_PROBABILITY = 0.1;
+    // Bits per axis of the Hilbert curve, 2 * 15 bits leave room for the city in a long key
+    private static final int CURVE_ORDER = 15;
+
+    private final int N;
+    private final DistanceMatrix distance;
+    private final NeighborLists candidates;
+
+    /**
+     * @param distance int[][] graph
+     */
+    public TourConstruction(int[][] distance) {
+        this(DistanceMatrix.wrap(distance));
+    }
+
+    /**
+     * Builds its own candidate lists with NeighborLists.of
+     * @param distance DistanceMatrix graph
+     */
+    public TourConstruction(DistanceMatrix distance) {
+        this(distance, NeighborLists.of(distance, CANDIDATES_PER_CITY));
+    }
+
+    /**
+     * @param distance DistanceMatrix graph
+     * @param candidates NeighborLists over the same cities, e.g. shared with a local search
+     */
+    public TourConstruction(DistanceMatrix distance, NeighborLists candidates) {
+        if (distance.size() < 2) throw new IllegalArgumentException("At least two cities are needed.");
+        if (candidates.numberOfCities() != distance.size())
+            throw new IllegalArgumentException("Neighbor lists cover " + candidates.numberOfCities() + " cities, not " + distance.size() + ".");
+        this.N = distance.size();
+        this.distance = distance;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Tour that always moves on to the closest city not visited yet. The candidate
+     * lists are tried first, only when all of them are visited the remaining cities
+     * are scanned, so the tour costs far less than n^2 price lookups
+     * @param start int first city
+     * @param random SplittableRandom sometimes takes the second-nearest city instead, null for the plain greedy tour
+     * @return int[] tour starting at 'start'
+     */
+    public int[] nearestNeighbour(int start, SplittableRandom random) {
+        if (start < 0 || start >= N) throw new IllegalArgumentException("Invalid start node.");
+        int[] tour = new int[N];
+        // Unvisited cities in the first 'remaining' slots, slot[] finds a city in O(1) for removal
+        int[] free = new int[N];
+        int[] slot = new int[N];
+        for (int i = 0; i < N; i++) {
+            free[i] = i;
+            slot[i] = i;
+        }
+        int remaining = N;
+        int last = start;
+        for (int i = 0; ; i++) {
+            tour[i] = last;
+            // Swap-remove 'last' from the unvisited cities
+            int moved = free[--remaining];
+            free[slot[last]] = moved;
+            slot[moved] = slot[last];
+            slot[last] = remaining;
+            free[remaining] = last;
+            if (remaining == 0) return tour;
+
+            int next = -1, second = -1;
+            boolean detour = random != null && random.nextDouble() < DETOUR_PROBABILITY;
+            for (int rank = 0; rank < candidates.size(); rank++) {
+                int candidate = candidates.get(last, rank);
+                if (slot[candidate] >= remaining) continue;
+                if (next < 0) {
+                    next = candidate;
+                    if (!detour) break;
+                } else {
+                    second = candidate;
+                    break;
+                }
+            }
+            if (next < 0) {
+                for (int j = 0; j < remaining; j++) {
+                    int v = free[j];
+                    if (next < 0 || distance.get(last, v) < distance.get(last, next)) next = v;
+                }
+            }
+            last = second >= 0 ? second : next;
+        }
+    }
+
+    /**
+     * Greedy edge (multi-fragment) tour: candidate edges are added cheapest first
+     * whenever both cities still have a free end and the edge closes no cycle. The
+     * fragments left over are then chained, each joined to the closest free end of
+     * another fragment. Runs in O(n k log(n k)) plus the chaining of the fragments.
+     * The travel prices are assumed to be symmetric
+     * @return int[] tour
+     */
+    public int[] greedyEdge() {
+        int k = candidates.size();
+        // Price in the high bits, edge number city * k + rank in the low bits
+        long[] edges = new long[N * k];
+        int count = 0;
+        for (int city = 0; city < N; city++) {
+            for (int rank = 0; rank < k; rank++) {
+                int other = candidates.get(city, rank);
+                // Each pair once, from the smaller city, unless only the larger one lists it
+                if (other < city && listed(other, city)) continue;
+                edges[count++] = ((long) distance.get(city, other) << 32) | (city * k + rank);
+            }
+        }
+        Arrays.sort(edges, 0, count);
+
+        // adjacent[2 * city] and adjacent[2 * city + 1] are the tour neighbours chosen so far
+        int[] adjacent = new int[2 * N];
+        Arrays.fill(adjacent, -1);
+        int[] parent = new int[N];
+        for (int i = 0; i < N; i++) parent[i] = i;
+        int added = 0;
+        for (int e = 0; e < count && added < N - 1; e++) {
+            int index = (int) edges[e];
+            int a = index / k, b = candidates.get(a, index % k);
+            if (adjacent[2 * a + 1] >= 0 || adjacent[2 * b + 1] >= 0) continue;
+            int rootA = find(parent, a), rootB = find(parent, b);
+            if (rootA == rootB) continue;
+            parent[rootA] = rootB;
+            link(adjacent, a, b);
+            link(adjacent, b, a);
+            added++;
+        }
+        return chainFragments(adjacent);
+    }
+
+    private boolean listed(int city, int other) {
+        for (int rank = 0; rank < candidates.size(); rank++) {
+            if (candidates.get(city, rank) == other) return true;
+        }
+        return false;
+    }
+
+    private static int find(int[] parent, int city) {
+        while (parent[city] != city) {
+            parent[city] = parent[parent[city]];
+            city = parent[city];
+        }
+        return city;
+    }
+
+    private static void link(int[] adjacent, int city, int other) {
+        adjacent[adjacent[2 * city] < 0 ? 2 * city : 2 * city + 1] = other;
+    }
+
+    // Walks the paths of a degree-two forest and joins them nearest end first into one tour.
+    private int[] chainFragments(int[] adjacent) {
+        // Fragments as runs of 'paths', fragment f spans paths[first[f] .. first[f + 1])
+        int[] paths = new int[N];
+        int[] first = new int[N + 1];
+        boolean[] placed = new boolean[N];
+        int fragments = 0, length = 0;
+        for (int city = 0; city < N; city++) {
+            if (placed[city] || adjacent[2 * city + 1] >= 0) continue;
+            // 'city' is an end of a path, possibly a single city
+            first[fragments++] = length;
+            int previous = -1, current = city;
+            while (current >= 0) {
+                paths[length++] = current;
+                placed[current] = true;
+                int next = adjacent[2 * current] != previous ? adjacent[2 * current] : adjacent[2 * current + 1];
+                previous = current;
+                current = next;
+            }
+        }
+        first[fragments] = length;
+
+        int[] tour = new int[N];
+        int size = 0;
+        // Fragments not chained yet in the first 'open' slots
+        int[] open = new int[fragments];
+        for (int f = 0; f < fragments; f++) open[f] = f;
+        int openCount = fragments;
+        int current = 0;
+        boolean reversed = false;
+        while (true) {
+            int from = first[current], to = first[current + 1];
+            for (int i = 0; i < to - from; i++) {
+                tour[size++] = paths[reversed ? to - 1 - i : from + i];
+            }
+            int position = indexOf(open, openCount, current);
+            open[position] = open[--openCount];
+            if (openCount == 0) return tour;
+
+            int tail = tour[size - 1], bestSlot = -1, bestPrice = 0;
+            boolean bestReversed = false;
+            for (int j = 0; j < openCount; j++) {
+                int f = open[j];
+                int head = paths[first[f]], end = paths[first[f + 1] - 1];
+                int price = distance.get(tail, head);
+                if (bestSlot < 0 || price < bestPrice) {
+                    bestSlot = j;
+                    bestPrice = price;
+                    bestReversed = false;
+                }
+                price = distance.get(tail, end);
+                if (price < bestPrice) {
+                    bestSlot = j;
+                    bestPrice = price;
+                    bestReversed = true;
+                }
+            }
+            current = open[bestSlot];
+            reversed = bestReversed;
+        }
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return i;
+        }
+        throw new IllegalStateException("Fragment " + value + " is not open.");
+    }
+
+    /**
+     * Visits the cities in the order of a Hilbert curve through the bounding box of the
+     * coordinates. Needs only a sort, O(n log n), and no prices at all
+     * @return int[] tour
+     */
+    public int[] spaceFillingCurve() {
+        if (!(distance instanceof CoordinateDistanceMatrix))
+            throw new IllegalArgumentException("A space-filling curve needs city coordinates.");
+        CoordinateDistanceMatrix coordinates = (CoordinateDistanceMatrix) distance;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < N; i++) {
+            minX = Math.min(minX, coordinates.getX(i));
+            maxX = Math.max(maxX, coordinates.getX(i));
+            minY = Math.min(minY, coordinates.getY(i));
+            maxY = Math.max(maxY, coordinates.getY(i));
+        }
+        // One scale for both axes keeps the curve from stretching the cells
+        int cells = (1 << CURVE_ORDER) - 1;
+        double span = Math.max(maxX - minX, maxY - minY);
+        double scale = span > 0 ? cells / span : 0;
+        long[] keys = new long[N];
+        for (int i = 0; i < N; i++) {
+            int cellX = (int) ((coordinates.getX(i) - minX) * scale);
+            int cellY = (int) ((coordinates.getY(i) - minY) * scale);
+            keys[i] = (hilbertIndex(cellX, cellY) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] tour = new int[N];
+        for (int i = 0; i < N; i++) tour[i] = (int) keys[i];
+        return tour;
+    }
+
+    // Position of a grid cell along the Hilbert curve of order CURVE_ORDER.
+    private static long hilbertIndex(int x, int y) {
+        long index = 0;
+        for (int s = 1 << (CURVE_ORDER - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant so the curve stays continuous
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int temp = x;
+                x = y;
+                y = temp;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Christofides-style tour: a minimum spanning tree, a matching of its odd-degree
+     * cities, an Euler tour of the union and shortcuts past repeated cities. The
+     * matching is greedy instead of minimum-weight, which gives up the 3/2 guarantee
+     * but keeps the construction at O(n^2). The travel prices are assumed to be symmetric
+     * @return int[] tour
+     */
+    public int[] christofides() {
+        // Prim's algorithm on the complete graph
+        int[] treeParent = new int[N];
+        int[] price = new int[N];
+        boolean[] inTree = new boolean[N];
+        Arrays.fill(price, Integer.MAX_VALUE);
+        price[0] = 0;
+        treeParent[0] = -1;
+        int[] degree = new int[N];
+        // Multigraph of tree and matching edges, at most n - 1 + n / 2 of them
+        int[] edgeFrom = new int[N + N / 2];
+        int[] edgeTo = new int[edgeFrom.length];
+        int edges = 0;
+        for (int step = 0; step < N; step++) {
+            int next = -1;
+            for (int v = 0; v < N; v++) {
+                if (!inTree[v] && (next < 0 || price[v] < price[next])) next = v;
+            }
+            inTree[next] = true;
+            if (treeParent[next] >= 0) {
+                edgeFrom[edges] = treeParent[next];
+                edgeTo[edges++] = next;
+                degree[treeParent[next]]++;
+                degree[next]++;
+            }
+            for (int v = 0; v < N; v++) {
+                if (!inTree[v] && distance.get(next, v) < price[v]) {
+                    price[v] = distance.get(next, v);
+                    treeParent[v] = next;
+                }
+            }
+        }
+
+        // Greedy matching: every odd city in turn takes its closest unmatched odd city
+        int[] odd = new int[N];
+        int oddCount = 0;
+        for (int v = 0; v < N; v++) {
+            if ((degree[v] & 1) == 1) odd[oddCount++] = v;
+        }
+        boolean[] matched = new boolean[N];
+        for (int i = 0; i < oddCount; i++) {
+            int a = odd[i];
+            if (matched[a]) continue;
+            int partner = -1;
+            for (int j = i + 1; j < oddCount; j++) {
+                int b = odd[j];
+                if (!matched[b] && (partner < 0 || distance.get(a, b) < distance.get(a, partner))) partner = b;
+            }
+            matched[a] = true;
+            matched[partner] = true;
+            edgeFrom[edges] = a;
+            edgeTo[edges++] = partner;
+        }
+        return shortcutEulerTour(edgeFrom, edgeTo, edges);
+    }
+
+    // Hierholzer's algorithm on an Eulerian multigraph, keeping only the first visit of every city.
+    private int[] shortcutEulerTour(int[] edgeFrom, int[] edgeTo, int edges) {
+        // Incidence lists in compressed form: incident[offset[v] .. offset[v + 1]) are the edges at v
+        int[] offset = new int[N + 1];
+        for (int e = 0; e < edges; e++) {
+            offset[edgeFrom[e] + 1]++;
+            offset[edgeTo[e] + 1]++;
+        }
+        for (int v = 0; v < N; v++) offset[v + 1] += offset[v];
+        int[] incident = new int[2 * edges];
+        int[] fill = Arrays.copyOf(offset, N);
+        for (int e = 0; e < edges; e++) {
+            incident[fill[edgeFrom[e]]++] = e;
+            incident[fill[edgeTo[e]]++] = e;
+        }
+        int[] cursor = Arrays.copyOf(offset, N);
+        boolean[] used = new boolean[edges];
+        boolean[] visited = new boolean[N];
+        int[] tour = new int[N];
+        int size = 0;
+        int[] stack = new int[edges + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int v = stack[top - 1];
+            while (cursor[v] < offset[v + 1] && used[incident[cursor[v]]]) cursor[v]++;
+            if (cursor[v] == offset[v + 1]) {
+                top--;
+                if (!visited[v]) {
+                    visited[v] = true;
+                    tour[size++] = v;
+                }
+            } else {
+                int e = incident[cursor[v]++];
+                used[e] = true;
+                stack[top++] = edgeFrom[e] == v ? edgeTo[e] : edgeFrom[e];
+            }
+        }
+        return tour;
+    }
+
+    /**
+     * The deterministic tours this instance supports: greedy edge and Christofides for
+     * symmetric prices, the latter only up to 5000 cities, and the space-filling curve
+     * for coordinate instances. For asymmetric prices the plain nearest neighbour tour from city 0
+     * @return List of int[] tours
+     */
+    public List<int[]> deterministicTours() {
+        List<int[]> tours = new ArrayList<>();
+        if (distance.isSymmetric()) {
+            tours.add(greedyEdge());
+            if (N <= CHRISTOFIDES_LIMIT) tours.add(christofides());
+        } else {
+            tours.add(nearestNeighbour(0, null));
+        }
+        if (distance instanceof CoordinateDistanceMatrix) tours.add(spaceFillingCurve());
+        return tours;
+    }
+
+    /**
+     * Runs every deterministic heuristic and a number of randomized nearest neighbour
+     * tours from random starts on a pool of worker threads and keeps the cheapest tour.
+     * Its cost is a cheap upper bound for the exact solvers
+     * @param start int city the returned tour starts at
+     * @param randomTries int number of randomized nearest neighbour tours
+     * @param seed long seed of the random starts
+     * @param parallelism int number of worker threads
+     * @return int[] cheapest tour found, starting at 'start'
+     */
+    public int[] best(int start, int randomTries, long seed, int parallelism) {
+        if (randomTries < 0) throw new IllegalArgumentException("Number of tries must not be negative.");
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1.");
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[randomTries];
+        for (int i = 0; i < randomTries; i++) streams[i] = random.split();
+        // Task 0 builds the deterministic tours, the others one randomized tour each
+        int[][] bestOfTask = new int[randomTries + 1][];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new TryTask(task -> {
+                if (task == 0) {
+                    for (int[] tour : deterministicTours()) {
+                        if (bestOfTask[0] == null || cost(tour) < cost(bestOfTask[0])) bestOfTask[0] = tour;
+                    }
+                } else {
+                    SplittableRandom stream = streams[task - 1];
+                    bestOfTask[task] = nearestNeighbour(stream.nextInt(N), stream);
+                }
+            }, 0, randomTries + 1));
+        } finally {
+            pool.shutdown();
+        }
+        // Ties go to the lower task, so the result does not depend on the thread count
+        int[] best = bestOfTask[0];
+        int bestCost = cost(best);
+        for (int task = 1; task <= randomTries; task++) {
+            int taskCost = cost(bestOfTask[task]);
+            if (taskCost < bestCost) {
+                best = bestOfTask[task];
+                bestCost = taskCost;
+            }
+        }
+        return rotate(best, start);
+    }
+
+    // Splits a range of tries in halves down to single tries.
+    private static final class TryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer body;
+        private final int from, to;
+
+        TryTask(IntConsumer body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) body.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TryTask(body, from, mid), new TryTask(body, mid, to));
+        }
+    }
+
+    /**
+     * This method computes the price of a closed tour
+     * @param tour int[] cities in visiting order
+     * @return int price including the edge back to the first city
+     */
+    public int cost(int[] tour) {
+        int total = 0;
+        for (int i = 0; i < tour.length; i++) {
+            total += distance.get(tour[i], tour[i + 1 < tour.length ? i + 1 : 0]);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the same cycle starting at another city
+     * @param tour int[] cities in visiting order
+     * @param start int city to put first
+     * @return int[] new array
+     */
+    public static int[] rotate(int[] tour, int start) {
+        int shift = -1;
+        for (int i = 0; i < tour.length && shift < 0; i++) {
+            if (tour[i] == start) shift = i;
+        }
+        if (shift < 0) throw new IllegalArgumentException("City " + start + " is not on the tour.");
+        int[] rotated = new int[tour.length];
+        System.arraycopy(tour, shift, rotated, 0, tour.length - shift);
+        System.arraycopy(tour, 0, rotated, tour.length - shift, shift);
+        return rotated;
+    }
+}
+
+/*
+    Reference:
+    #1 Rosenkrantz, Stearns and Lewis, An analysis of several heuristics for the traveling salesman problem (1977)
+    #2 Bentley, Fast algorithms for geometric traveling salesman problems (1992)
+    #3 Platzman and Bartholdi, Spacefilling curves and the planar travelling salesman problem (1989)
+    #4 Christofides, Worst-case analysis of a new heuristic for the travelling salesman problem (1976)
+ */
@@ -0,0 +1,61 @@
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Distance matrix of a symmetric instance that stores only the upper triangle,
+ * diagonal included, row after row in one int[]: about half the memory of a full matrix.
+ */
+public class TriangularDistanceMatrix implements DistanceMatrix {
+    private final int n;
+    private final int[] prices;
+    // rowStart[i] is the slot of the pair (i, i)
+    private final int[] rowStart;
+
+    public TriangularDistanceMatrix(int[][] prices) {
+        this(prices.length, (from, to) -> prices[from][to]);
+        if (!DistanceMatrix.isSymmetric(n, (from, to) -> prices[from][to]))
+            throw new IllegalArgumentException("Matrix must be symmetric.");
+    }
+
+    /**
+     * @param size int number of cities, at most 65535
+     * @param price IntBinaryOperator price between two cities, only called with from <= to
+     */
+    public TriangularDistanceMatrix(int size, IntBinaryOperator price) {
+        n = size;
+        rowStart = rowStarts(size);
+        prices = new int[rowStart[size]];
+        for (int from = 0; from < size; from++) {
+            for (int to = from; to < size; to++) {
+                prices[rowStart[from] + to - from] = price.applyAsInt(from, to);
+            }
+        }
+    }
+
+    /**
+     * This method lays out the rows of an upper triangle
+     * @param size int number of cities
+     * @return int[] slot of the diagonal entry of every row, plus the total size at index 'size'
+     */
+    static int[] rowStarts(int size) {
+        if ((long) size * (size + 1) / 2 > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many cities for a triangular matrix: " + size + ".");
+        int[] rowStart = new int[size + 1];
+        for (int i = 0; i < size; i++) rowStart[i + 1] = rowStart[i] + size - i;
+        return rowStart;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return from <= to ? prices[rowStart[from] + to - from] : prices[rowStart[to] + from - to];
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of TspSolver.solve(): a closed tour and its cost. Immutable, so it can be
+ * handed between threads and kept in caches.
+ */
+public class TspSolution {
+    private final List<Integer> tour;
+    private final int cost;
+
+    /**
+     * @param tour List closed tour from the starting node back to it, copied
+     * @param cost int price of the tour
+     */
+    public TspSolution(List<Integer> tour, int cost) {
+        this.tour = Collections.unmodifiableList(new ArrayList<>(tour));
+        this.cost = cost;
+    }
+
+    // Returns the tour from the starting node back to it.
+    public List<Integer> getTour() {
+        return tour;
+    }
+
+    // Returns the price of the tour.
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "Cost " + cost + ": " + tour;
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Common entry point of the solvers, so callers can solve instances without the menu
+ * in Main and swap one solver for another. An implementation holds only settings:
+ * every call of solve() works on its own state and may run concurrently with others.
+ */
+public interface TspSolver {
+    /**
+     * Solves one instance
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return TspSolution
+     */
+    TspSolution solve(DistanceMatrix travelPrices, int startingCity);
+
+    /**
+     * Solves one instance on the common ForkJoinPool
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return CompletableFuture completed with the solution, or exceptionally with the solver's exception
+     */
+    default CompletableFuture<TspSolution> solveAsync(DistanceMatrix travelPrices, int startingCity) {
+        return solveAsync(travelPrices, startingCity, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves one instance on the given executor
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @param executor Executor that runs the solver
+     * @return CompletableFuture completed with the solution, or exceptionally with the solver's exception
+     */
+    default CompletableFuture<TspSolution> solveAsync(DistanceMatrix travelPrices, int startingCity, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> solve(travelPrices, startingCity), executor);
+    }
+}
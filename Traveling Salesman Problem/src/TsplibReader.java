@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader for TSPLIB instance files (http://comopt.ifi.uni-heidelberg.de/software/TSPLIB95/).
+ * The file is memory-mapped and the numbers are parsed straight from its bytes, so
+ * apart from the few header lines no String is created. Supported are coordinate
+ * instances of type EUC_2D, CEIL_2D, ATT and GEO, which become a CoordinateDistanceMatrix,
+ * and EXPLICIT instances in FULL_MATRIX, UPPER_ROW, LOWER_ROW, UPPER_DIAG_ROW and
+ * LOWER_DIAG_ROW format, which are packed with DistanceMatrix.of.
+ */
+public class TsplibReader {
+    private final MappedByteBuffer data;
+    private final int end;
+    private int cursor = 0;
+
+    private String name = "";
+    private int dimension = -1;
+    private String edgeWeightType = "";
+    private String edgeWeightFormat = "";
+
+    private TsplibReader(MappedByteBuffer data) {
+        this.data = data;
+        this.end = data.limit();
+    }
+
+    /**
+     * This method loads a TSPLIB file
+     * @param file Path of a .tsp or .atsp file
+     * @return DistanceMatrix prices between the cities, city i is node i + 1 of the file
+     */
+    public static DistanceMatrix read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("File is larger than 2 GiB: " + file + ".");
+            TsplibReader reader = new TsplibReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            return reader.parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file + ".", e);
+        }
+    }
+
+    private DistanceMatrix parse() {
+        // Header: "KEYWORD : value" lines until the first data section
+        while (cursor < end) {
+            String line = nextLine().trim();
+            if (line.isEmpty()) continue;
+            int colon = line.indexOf(':');
+            String keyword = (colon < 0 ? line : line.substring(0, colon)).trim().toUpperCase();
+            String value = colon < 0 ? "" : line.substring(colon + 1).trim();
+            switch (keyword) {
+                case "NAME": name = value; break;
+                case "DIMENSION": dimension = Integer.parseInt(value); break;
+                case "EDGE_WEIGHT_TYPE": edgeWeightType = value.toUpperCase(); break;
+                case "EDGE_WEIGHT_FORMAT": edgeWeightFormat = value.toUpperCase(); break;
+                case "NODE_COORD_SECTION": return readCoordinates();
+                case "EDGE_WEIGHT_SECTION": return readExplicit();
+                case "EOF": throw new IllegalArgumentException("No NODE_COORD_SECTION or EDGE_WEIGHT_SECTION in " + name + ".");
+                default: break;     // TYPE, COMMENT, DISPLAY_DATA_TYPE, ... do not change the prices
+            }
+        }
+        throw new IllegalArgumentException("No NODE_COORD_SECTION or EDGE_WEIGHT_SECTION in " + name + ".");
+    }
+
+    // Reads "node x y" lines into a coordinate matrix.
+    private DistanceMatrix readCoordinates() {
+        requireDimension();
+        CoordinateMetric metric;
+        try {
+            metric = CoordinateMetric.valueOf(edgeWeightType);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_TYPE: " + edgeWeightType + ".");
+        }
+        double[] x = new double[dimension];
+        double[] y = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            int node = (int) nextLong();
+            if (node < 1 || node > dimension) throw new IllegalArgumentException("Node " + node + " is out of range.");
+            x[node - 1] = nextDouble();
+            y[node - 1] = nextDouble();
+        }
+        return new CoordinateDistanceMatrix(x, y, metric);
+    }
+
+    // Reads the listed prices in the order the format gives them.
+    private DistanceMatrix readExplicit() {
+        requireDimension();
+        if (!edgeWeightType.equals("EXPLICIT"))
+            throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_TYPE: " + edgeWeightType + ".");
+        int n = dimension;
+        if (edgeWeightFormat.equals("FULL_MATRIX")) {
+            if ((long) n * n > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many cities for a full matrix: " + n + ".");
+            int[] prices = new int[n * n];
+            for (int i = 0; i < prices.length; i++) prices[i] = (int) nextLong();
+            return DistanceMatrix.of(n, (from, to) -> prices[from * n + to]);
+        }
+
+        // The triangular formats all describe a symmetric matrix, read into the upper triangle
+        int[] rowStart = TriangularDistanceMatrix.rowStarts(n);
+        int[] prices = new int[rowStart[n]];
+        for (int i = 0; i < n; i++) {
+            int first, last;
+            switch (edgeWeightFormat) {
+                case "UPPER_ROW": first = i + 1; last = n - 1; break;
+                case "UPPER_DIAG_ROW": first = i; last = n - 1; break;
+                case "LOWER_ROW": first = 0; last = i - 1; break;
+                case "LOWER_DIAG_ROW": first = 0; last = i; break;
+                default: throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_FORMAT: " + edgeWeightFormat + ".");
+            }
+            for (int j = first; j <= last; j++) {
+                int value = (int) nextLong();
+                prices[i <= j ? rowStart[i] + j - i : rowStart[j] + i - j] = value;
+            }
+        }
+        return DistanceMatrix.of(n, (from, to) -> prices[rowStart[from] + to - from], true);
+    }
+
+    private void requireDimension() {
+        if (dimension < 1) throw new IllegalArgumentException("DIMENSION is missing.");
+    }
+
+    // Returns the rest of the current line, only used for the short header lines.
+    private String nextLine() {
+        int start = cursor;
+        while (cursor < end && data.get(cursor) != '\n') cursor++;
+        byte[] bytes = new byte[cursor - start];
+        data.get(start, bytes);
+        if (cursor < end) cursor++;
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // Moves the cursor to the next byte that is not whitespace and fails at the end of the file.
+    private void skipWhitespace() {
+        while (cursor < end && data.get(cursor) <= ' ') cursor++;
+        if (cursor == end) throw new IllegalArgumentException("File ends before all " + dimension + " nodes were read.");
+    }
+
+    // The byte at the cursor, -1 at the end of the file.
+    private int peek() {
+        return cursor < end ? data.get(cursor) : -1;
+    }
+
+    private long nextLong() {
+        skipWhitespace();
+        int token = cursor;
+        boolean negative = peek() == '-';
+        if (negative || peek() == '+') cursor++;
+        int start = cursor;
+        long value = 0;
+        byte b;
+        while (cursor < end && (b = data.get(cursor)) >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            cursor++;
+        }
+        // Some files write integral prices as "12.0" or "1e3"
+        if (peek() == '.' || (peek() | 0x20) == 'e') {
+            cursor = token;
+            return (long) nextDouble();
+        }
+        if (cursor == start) throw new IllegalArgumentException("Number expected at byte " + start + ".");
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number from the mapped bytes. Numbers with up to 15 significant
+     * digits and a small exponent are exact in a double, so one multiplication or division
+     * rounds them correctly; anything longer goes through Double.parseDouble
+     * @return double
+     */
+    private double nextDouble() {
+        skipWhitespace();
+        int start = cursor;
+        boolean negative = peek() == '-';
+        if (negative || peek() == '+') cursor++;
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean point = false, any = false;
+        while (cursor < end) {
+            byte b = data.get(cursor);
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (mantissa != 0 || b != '0') digits++;
+                mantissa = digits <= 18 ? mantissa * 10 + (b - '0') : mantissa;
+                if (digits > 18) exponent++;
+                if (point) exponent--;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+            cursor++;
+        }
+        if (!any) throw new IllegalArgumentException("Number expected at byte " + start + ".");
+        if ((peek() | 0x20) == 'e') {
+            cursor++;
+            boolean negativeExponent = peek() == '-';
+            if (negativeExponent || peek() == '+') cursor++;
+            int exponentStart = cursor;
+            int value = 0;
+            byte b;
+            while (cursor < end && (b = data.get(cursor)) >= '0' && b <= '9') {
+                value = Math.min(value * 10 + (b - '0'), 100_000);
+                cursor++;
+            }
+            // "1e" or "1e+" is not a number, it must not be read as 1
+            if (cursor == exponentStart) throw new IllegalArgumentException("Number expected at byte " + exponentStart + ".");
+            exponent += negativeExponent ? -value : value;
+        }
+        if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        byte[] bytes = new byte[cursor - start];
+        data.get(start, bytes);
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    // 1e0 .. 1e22 are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+}
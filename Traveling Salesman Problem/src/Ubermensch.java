@@ -1,9 +1,18 @@
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
-public class Ubermensch {
+public class Ubermensch implements TspSolver {
     private final int generationSize;   // number of genomes/individuals in each generation
     private final int genomeSize;       // Equals to number of nodes minus one (Chromosome length)
     private final int numberOfCities;
@@ -11,15 +20,58 @@ public class Ubermensch {
     // Number of genomes who will be selected to reproduce to make the next generation
     // The maximum number of generations to program will evolve before terminating
     // in case there is no convergence before then.
-    private final int maxIterations;
+    private int maxIterations;
     private final float mutationRate;   // Frequency of mutations when creating a new generation
     private final int tournamentSize;
     private final SelectionType selectionType;
-    private final int[][] travelPrices;
+    private final DistanceMatrix travelPrices;
     private final int startingCity;
     // Fitness of the best genome has to reach according to the objective function
     // for the program to terminate early. Setting a fitness value can shorten the program
     private final int targetFitness;
+    // Number of children built by one task; the work split does not depend on the thread count
+    private static final int CHUNK_SIZE = 64;
+    private final int parallelism;
+    // Drives selection and hands out one split stream per chunk, so seeded runs are reproducible
+    private final SplittableRandom random;
+    private ForkJoinPool pool;
+    // One city-position index per chunk for crossover, allocated once and reused every generation
+    private int[][] positionScratch = new int[0][];
+    // Running sums of 1 / fitness over the population, rebuilt once per generation for roulette
+    private double[] rouletteTable = new double[0];
+    private final ThreadLocal<TournamentMarks> tournamentMarks = ThreadLocal.withInitial(TournamentMarks::new);
+    // Memetic stage: every localSearchFrequency generations the localSearchElite best genomes
+    // are improved with 2-opt / Or-opt, at most localSearchBudget moves each (0 = until no move helps)
+    static final int CANDIDATES_PER_CITY = 10;
+    private int localSearchFrequency = 0;
+    private int localSearchElite;
+    private int localSearchBudget;
+    private NeighborLists neighborLists;
+    private ThreadLocal<LocalSearch> localSearch;
+    private SalesmanGenome[] ranked = new SalesmanGenome[0];
+    // Early stopping: optimize() ends after stagnationLimit generations without a better genome,
+    // or once the diversity of a generation falls below diversityThreshold (0 turns either off)
+    private int stagnationLimit = 0;
+    private double diversityThreshold = 0;
+    private long[] pathHashes = new long[0];
+    // Per-generation metrics, only measured when enabled or when a listener is set
+    private boolean metricsEnabled = false;
+    private Consumer<GenerationMetrics> generationListener;
+    private List<GenerationMetrics> metrics = new ArrayList<>();
+    private final LongAdder crossoverNanos = new LongAdder();
+    private final LongAdder mutationNanos = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final LongAdder workerAllocatedBytes = new LongAdder();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    // Steady-state mode: every step breeds steadyStateOffspring children that replace the worst
+    // genomes in place, 0 keeps the generational mode. worstFirst holds the population slots
+    // ordered as a max-heap on fitness, so the worst genome is always worstFirst[0]
+    private int steadyStateOffspring = 0;
+    private int[] worstFirst = new int[0];
+    // Called after every generation, e.g. by IslandModel to exchange genomes between populations
+    private GenerationHook generationHook;
+    // Share of the initial population built by TourConstruction instead of shuffling
+    private double constructionShare = 0;
 
     /**
      * Constructor for Übermensch (Genetic Algorithm Data Fields)
@@ -30,6 +82,44 @@ public class Ubermensch {
      * @param targetFitness int
      */
     public Ubermensch(int numberOfCities, SelectionType selectionType, int[][] travelPrices, int startingCity, int targetFitness){
+        this(numberOfCities, selectionType, DistanceMatrix.wrap(travelPrices), startingCity, targetFitness, new SplittableRandom(), 1);
+    }
+
+    /**
+     * Constructor for a seeded, multi-threaded Übermensch. Offspring creation and fitness
+     * evaluation are split into fixed chunks, each with its own SplittableRandom stream
+     * split from the seed, so the same seed gives the same result for any parallelism.
+     * @param numberOfCities int number of vertices
+     * @param selectionType enum Two solving methods (roulette, tournament)
+     * @param travelPrices int[][] graph
+     * @param startingCity int starting position
+     * @param targetFitness int
+     * @param seed long seed of the random streams
+     * @param parallelism int number of worker threads, 1 runs on the calling thread
+     */
+    public Ubermensch(int numberOfCities, SelectionType selectionType, int[][] travelPrices, int startingCity, int targetFitness, long seed, int parallelism){
+        this(numberOfCities, selectionType, DistanceMatrix.wrap(travelPrices), startingCity, targetFitness, new SplittableRandom(seed), parallelism);
+    }
+
+    /**
+     * Seeded, multi-threaded Übermensch on any distance matrix backend, e.g. a compact
+     * one from DistanceMatrix.of for large instances
+     * @param numberOfCities int number of vertices
+     * @param selectionType enum Two solving methods (roulette, tournament)
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting position
+     * @param targetFitness int
+     * @param seed long seed of the random streams
+     * @param parallelism int number of worker threads, 1 runs on the calling thread
+     */
+    public Ubermensch(int numberOfCities, SelectionType selectionType, DistanceMatrix travelPrices, int startingCity, int targetFitness, long seed, int parallelism){
+        this(numberOfCities, selectionType, travelPrices, startingCity, targetFitness, new SplittableRandom(seed), parallelism);
+    }
+
+    private Ubermensch(int numberOfCities, SelectionType selectionType, DistanceMatrix travelPrices, int startingCity, int targetFitness, SplittableRandom random, int parallelism){
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1.");
+        this.random = random;
+        this.parallelism = parallelism;
         this.numberOfCities = numberOfCities;
         this.genomeSize = numberOfCities - 1;
         this.selectionType = selectionType;
@@ -44,12 +134,169 @@ public class Ubermensch {
         tournamentSize = 40;
     }
 
+    /**
+     * Turns on the memetic stage: local search (2-opt and Or-opt over the 10 nearest
+     * candidates of every city) applied to the best genomes of a generation.
+     * The travel prices have to be symmetric
+     * @param frequency int run every 'frequency' generations, 0 turns the stage off
+     * @param eliteCount int number of best genomes to improve, generationSize improves every child
+     * @param moveBudget int maximum improving moves per genome, 0 for no limit
+     */
+    public void setLocalSearch(int frequency, int eliteCount, int moveBudget){
+        if (frequency < 0 || eliteCount < 0 || moveBudget < 0)
+            throw new IllegalArgumentException("Local search settings must not be negative.");
+        if (frequency > 0 && !travelPrices.isSymmetric())
+            throw new IllegalArgumentException("Local search needs symmetric travel prices.");
+        localSearchFrequency = frequency;
+        localSearchElite = Math.min(eliteCount, generationSize);
+        localSearchBudget = moveBudget;
+    }
+
+    /**
+     * Gives the memetic stage candidate lists built elsewhere, e.g. shared between the
+     * islands of an IslandModel, instead of building its own when optimize() starts
+     * @param lists NeighborLists over the same cities
+     */
+    public void setNeighborLists(NeighborLists lists){
+        if (lists.numberOfCities() != numberOfCities)
+            throw new IllegalArgumentException("Neighbor lists cover " + lists.numberOfCities() + " cities, not " + numberOfCities + ".");
+        neighborLists = lists;
+        localSearch = null;
+    }
+
+    // Returns true if optimize() will run the memetic stage.
+    boolean usesLocalSearch(){
+        return localSearchFrequency > 0;
+    }
+
+    /**
+     * Switches optimize() to a steady-state GA. Instead of replacing the whole population,
+     * each step breeds a few children from the current population and each child takes the
+     * place of the worst genome if it is better than it and not a copy of a parent. The best
+     * genomes are therefore never lost, and only the children of one step are allocated.
+     * One generation of optimize() is generationSize / offspringPerStep steps, so the number
+     * of children per generation stays the same. Steps run on the calling thread
+     * @param offspringPerStep int children per step, rounded up to an even number; 0 turns the mode off
+     */
+    public void setSteadyState(int offspringPerStep){
+        if (offspringPerStep < 0) throw new IllegalArgumentException("Offspring per step must not be negative.");
+        steadyStateOffspring = (offspringPerStep + 1) / 2 * 2;
+    }
+
+    /**
+     * Seeds part of the initial population with construction heuristics: the greedy edge,
+     * Christofides and space-filling-curve tours where the instance allows them, then
+     * randomized nearest neighbour tours from random starts. The rest stays random, so
+     * the population keeps enough diversity for crossover
+     * @param share double fraction of the population between 0 and 1, 0 seeds nothing
+     */
+    public void setConstructionSeeding(double share){
+        if (share < 0 || share > 1) throw new IllegalArgumentException("Seeding share must be between 0 and 1.");
+        constructionShare = share;
+    }
+
+    /**
+     * Sets the number of generations after which optimize() stops at the latest
+     * @param generations int maximum number of generations, 1000 by default
+     */
+    public void setMaxIterations(int generations){
+        if (generations < 1) throw new IllegalArgumentException("At least one generation is needed.");
+        maxIterations = generations;
+    }
+
+    /**
+     * Stops optimize() once the best genome has not improved for a number of generations
+     * @param generations int generations without improvement, 0 never stops early
+     */
+    public void setStagnationLimit(int generations){
+        if (generations < 0) throw new IllegalArgumentException("Stagnation limit must not be negative.");
+        stagnationLimit = generations;
+    }
+
+    /**
+     * Stops optimize() once the population has converged, measured as the number of
+     * distinct tours divided by the population size
+     * @param threshold double diversity between 0 and 1 below which the run stops, 0 never stops early
+     */
+    public void setDiversityThreshold(double threshold){
+        if (threshold < 0 || threshold > 1) throw new IllegalArgumentException("Diversity threshold must be between 0 and 1.");
+        diversityThreshold = threshold;
+    }
+
+    /**
+     * Turns collection of per-generation metrics on or off. Measuring costs a few
+     * clock reads per child, so it is off by default
+     * @param enabled boolean
+     */
+    public void setMetricsEnabled(boolean enabled){
+        metricsEnabled = enabled;
+    }
+
+    /**
+     * Called with the metrics of every generation as soon as it is complete,
+     * on the thread running optimize(). Setting a listener turns metrics on
+     * @param listener Consumer of GenerationMetrics, null removes the listener
+     */
+    public void setGenerationListener(Consumer<GenerationMetrics> listener){
+        generationListener = listener;
+    }
+
+    /**
+     * Getter method for the metrics of the last optimize() run
+     * @return List of GenerationMetrics, one per generation, empty if metrics were off
+     */
+    public List<GenerationMetrics> getMetrics(){
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Code run on the optimizing thread after every generation. It may overwrite
+     * genomes of the population in place, as long as their fitness is updated
+     */
+    interface GenerationHook {
+        /**
+         * @param generation int number of the generation, starting at 1
+         * @param population SalesmanGenome[] current population
+         */
+        void afterGeneration(int generation, SalesmanGenome[] population);
+    }
+
+    void setGenerationHook(GenerationHook hook){
+        generationHook = hook;
+    }
+
+    private boolean collectMetrics(){
+        return metricsEnabled || generationListener != null;
+    }
+
     public List<SalesmanGenome> initialPopulation(){
-        List<SalesmanGenome> population = new ArrayList<>();
-        for(int i = 0; i < generationSize; i++){
-            population.add(new SalesmanGenome(numberOfCities, travelPrices, startingCity));
+        SalesmanGenome[] population = new SalesmanGenome[generationSize];
+        int seeded = (int) Math.round(constructionShare * generationSize);
+        TourConstruction construction = null;
+        List<int[]> deterministic = Collections.emptyList();
+        if (seeded > 0 && numberOfCities > 2) {
+            if (neighborLists == null) neighborLists = NeighborLists.of(travelPrices, CANDIDATES_PER_CITY);
+            construction = new TourConstruction(travelPrices, neighborLists);
+            deterministic = construction.deterministicTours();
         }
-        return population;
+        TourConstruction heuristics = construction;
+        List<int[]> fixedTours = deterministic;
+        SplittableRandom[] streams = splitStreams(chunkCount(generationSize));
+        forEachChunk(streams.length, chunk -> {
+            int end = Math.min(generationSize, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                if (heuristics != null && i < seeded) {
+                    int[] tour = i < fixedTours.size() ? fixedTours.get(i)
+                            : heuristics.nearestNeighbour(streams[chunk].nextInt(numberOfCities), streams[chunk]);
+                    // The genome leaves out the starting city
+                    int[] path = Arrays.copyOfRange(TourConstruction.rotate(tour, startingCity), 1, numberOfCities);
+                    population[i] = new SalesmanGenome(path, numberOfCities, travelPrices, startingCity);
+                } else {
+                    population[i] = new SalesmanGenome(numberOfCities, travelPrices, startingCity, streams[chunk]);
+                }
+            }
+        });
+        return new ArrayList<>(Arrays.asList(population));
     }
 
     /**
@@ -60,15 +307,22 @@ public class Ubermensch {
      */
     public List<SalesmanGenome> selection(List<SalesmanGenome> population){
         List<SalesmanGenome> selected = new ArrayList<>();
+        selectInto(population, selected);
+        return selected;
+    }
+
+    // Fills 'selected' with the genomes chosen to reproduce, reusing the list between generations.
+    private void selectInto(List<SalesmanGenome> population, List<SalesmanGenome> selected){
+        selected.clear();
+        if (selectionType == SelectionType.ROULETTE) buildRouletteTable(population);
         for(int i = 0; i < reproductionSize; i++){
             if(selectionType == SelectionType.ROULETTE){
-                selected.add(rouletteSelection(population));
+                selected.add(spinRoulette(population));
             }
             else if(selectionType == SelectionType.TOURNAMENT){
                 selected.add(tournamentSelection(population));
             }
         }
-        return selected;
     }
 
     /**
@@ -77,33 +331,50 @@ public class Ubermensch {
      * @return SalesmanGenome
      */
     public SalesmanGenome rouletteSelection(List<SalesmanGenome> population){
-        int totalFitness = population.stream().map(SalesmanGenome::getFitness).mapToInt(Integer::intValue).sum();
-
-        // Picking a random value to set a point on the roulette wheel
-        Random random = new Random();
-        int selectedValue = random.nextInt(totalFitness);
-
-        // Since TSP is looking for the minimum value, the method needs to use reciprocal value
-        // So the probability of selecting a genome would be inversely proportional to its fitness
-        // Hence, the smaller the fitness value the higher the probability
-        float recValue = (float) 1 / selectedValue;
+        buildRouletteTable(population);
+        return spinRoulette(population);
+    }
 
-        // Add up the values until reaching recValue, and pick the genome that crossed the threshold
-        float currentSum = 0;
-        for(SalesmanGenome genome : population){
-            currentSum += (float) 1 / genome.getFitness();
-            if(currentSum >= recValue){
-                return genome;
-            }
+    /**
+     * Builds the roulette wheel for a population. Since TSP is looking for the minimum value,
+     * each genome gets a slice proportional to the reciprocal of its fitness,
+     * hence the smaller the fitness value the higher the probability.
+     * The slices are stored as running sums in double precision, so the last
+     * entry is the exact size of the wheel and no draw falls off its end
+     * @param population List genome of a path
+     */
+    private void buildRouletteTable(List<SalesmanGenome> population){
+        if (rouletteTable.length < population.size()) {
+            rouletteTable = new double[population.size()];
         }
+        double currentSum = 0;
+        for (int i = 0; i < population.size(); i++) {
+            currentSum += 1.0 / Math.max(1, population.get(i).getFitness());
+            rouletteTable[i] = currentSum;
+        }
+    }
 
-        // If no genome crossed the threshold inside the for loop, choose one genome randomly
-        int selectRandom = random.nextInt(generationSize);
-        return population.get(selectRandom);
+    /**
+     * Picks a point on the wheel built by buildRouletteTable and
+     * binary searches the genome whose slice contains it, O(log n) per draw
+     * @param population List genome of a path, the same the table was built from
+     * @return SalesmanGenome
+     */
+    private SalesmanGenome spinRoulette(List<SalesmanGenome> population){
+        int size = population.size();
+        double selectedValue = random.nextDouble() * rouletteTable[size - 1];
+        int low = 0, high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rouletteTable[mid] > selectedValue) high = mid;
+            else low = mid + 1;
+        }
+        return population.get(low);
     }
 
     /**
-     * Helper function to pick n random elements from the population for the tournament
+     * Helper function to pick n random elements from the population for the tournament.
+     * Note that it shuffles the given list in place; tournamentSelection does not use it
      * @param list List genome Population
      * @param n int decided tournament size
      * @param <E> SalesmanGenome
@@ -128,23 +399,79 @@ public class Ubermensch {
      * @return List
      */
     public SalesmanGenome tournamentSelection (List<SalesmanGenome> population){
-        List<SalesmanGenome> selected = pickNRandomElements(population,tournamentSize);
-        return Collections.min(selected);
+        return tournamentSelection(population, random);
+    }
+
+    /**
+     * Deterministic tournament over tournamentSize distinct genomes drawn with the given stream.
+     * The population is only read, the best contestant is tracked while drawing, and the
+     * indices already drawn are marked in a per-thread stamp array, so the method is O(k),
+     * allocates nothing and can be called from several worker threads at once
+     * @param population List
+     * @param random SplittableRandom stream owned by the calling thread
+     * @return SalesmanGenome winner of the tournament
+     */
+    public SalesmanGenome tournamentSelection (List<SalesmanGenome> population, SplittableRandom random){
+        int size = population.size();
+        int contestants = Math.min(tournamentSize, size);
+        TournamentMarks marks = tournamentMarks.get();
+        int token = marks.next(size);
+        SalesmanGenome best = null;
+        for (int drawn = 0; drawn < contestants; drawn++) {
+            int index;
+            do {
+                index = random.nextInt(size);
+            } while (marks.stamp[index] == token);
+            marks.stamp[index] = token;
+            SalesmanGenome contestant = population.get(index);
+            if (best == null || contestant.compareTo(best) < 0) best = contestant;
+        }
+        return best;
+    }
+
+    /**
+     * Indices drawn in the current tournament of one thread. Instead of clearing the
+     * array for every tournament, each tournament uses a new token value
+     */
+    private static final class TournamentMarks {
+        private int[] stamp = new int[0];
+        private int token = 0;
+
+        // Starts a new tournament and returns its token.
+        int next(int size) {
+            if (stamp.length < size) {
+                stamp = new int[size];
+                token = 0;
+            }
+            if (++token == 0) {
+                Arrays.fill(stamp, 0);
+                token = 1;
+            }
+            return token;
+        }
     }
 
     /**
      * if the mutationRate passes the threshold, swap the two cities in the genome (mutate).
-     * Otherwise, return the original genome
+     * The genome is changed in place and returned
      * @param salesman SalesmanGenome
      * @return SalesmanGenome
      */
     public SalesmanGenome mutate(SalesmanGenome salesman){
-        Random random = new Random();
-        float mutate = random.nextFloat();
+        return mutate(salesman, random);
+    }
+
+    /**
+     * mutate using the given random stream, so it can run on a worker thread
+     * @param salesman SalesmanGenome
+     * @param random SplittableRandom stream owned by the calling thread
+     * @return SalesmanGenome
+     */
+    public SalesmanGenome mutate(SalesmanGenome salesman, SplittableRandom random){
+        float mutate = (float) random.nextDouble();
         if (mutate < mutationRate) {
-            List<Integer> genome = salesman.getGenome();
-            Collections.swap(genome, random.nextInt(genomeSize), random.nextInt(genomeSize));
-            return new SalesmanGenome(genome, numberOfCities, travelPrices, startingCity);
+            // Only the edges around the two swapped cities are re-evaluated
+            salesman.swap(random.nextInt(genomeSize), random.nextInt(genomeSize));
         }
         return salesman;
     }
@@ -155,23 +482,235 @@ public class Ubermensch {
      * @return List new generation
      */
     public List<SalesmanGenome> createGeneration(List<SalesmanGenome> population){
-        List<SalesmanGenome> generation = new ArrayList<>();
-        int currentGenerationSize = 0;
+        SalesmanGenome[] generation = new SalesmanGenome[arenaSize()];
+        for (int i = 0; i < generation.length; i++) {
+            generation[i] = blankGenome(population.get(0));
+        }
+        createGenerationInto(population, generation);
+        return new ArrayList<>(Arrays.asList(generation));
+    }
+
+    /**
+     * Builds the next generation into existing genomes, overwriting their paths
+     * @param population List selected genomes, must not share genomes with 'generation'
+     * @param generation SalesmanGenome[] pooled genomes receiving the children
+     */
+    private void createGenerationInto(List<SalesmanGenome> population, SalesmanGenome[] generation){
+        int pairs = generation.length / 2;
+        SplittableRandom[] streams = splitStreams(chunkCount(pairs));
+        if (positionScratch.length < streams.length) {
+            positionScratch = new int[streams.length][numberOfCities];
+        }
 
         // Creation of the new population requires the following steps:
         // #1 Selection
         // #2 Crossover
         // #3 Mutation
         // #4 Compute fitness
-        while(currentGenerationSize < generationSize){
-            List<SalesmanGenome> parents = pickNRandomElements(population,2);
-            List<SalesmanGenome> children = crossover(parents);
-            children.set(0, mutate(children.get(0)));
-            children.set(1, mutate(children.get(1)));
-            generation.addAll(children);
-            currentGenerationSize += 2;
+        // Each chunk of pairs is independent and reads the population without changing it
+        boolean timed = collectMetrics();
+        forEachChunk(streams.length, chunk -> {
+            SplittableRandom stream = streams[chunk];
+            int[] position = positionScratch[chunk];
+            int end = Math.min(pairs, (chunk + 1) * CHUNK_SIZE);
+            long crossoverTime = 0, evaluationTime = 0, mutationTime = 0;
+            for (int pair = chunk * CHUNK_SIZE; pair < end; pair++) {
+                long started = timed ? System.nanoTime() : 0;
+                // Two distinct parents, picked without reordering the population
+                int first = stream.nextInt(population.size());
+                int second = stream.nextInt(population.size() - 1);
+                if (second >= first) second++;
+                SalesmanGenome child1 = generation[2 * pair], child2 = generation[2 * pair + 1];
+                crossoverInto(population.get(first), population.get(second), child1, child2, position, stream);
+                long crossed = timed ? System.nanoTime() : 0;
+                child1.updateFitness();
+                child2.updateFitness();
+                long evaluated = timed ? System.nanoTime() : 0;
+                mutate(child1, stream);
+                mutate(child2, stream);
+                if (timed) {
+                    long mutated = System.nanoTime();
+                    crossoverTime += crossed - started;
+                    evaluationTime += evaluated - crossed;
+                    mutationTime += mutated - evaluated;
+                }
+            }
+            if (timed) {
+                crossoverNanos.add(crossoverTime);
+                evaluationNanos.add(evaluationTime);
+                mutationNanos.add(mutationTime);
+            }
+        });
+    }
+
+    // Number of genomes in each generation buffer, children are produced in pairs.
+    private int arenaSize(){
+        return (generationSize + 1) / 2 * 2;
+    }
+
+    /**
+     * One generation of the steady-state mode. For roulette selection the wheel is built once
+     * per generation, a slot replaced during the generation keeps the slice of the genome it replaced
+     * @param population List genomes in their fixed slots, ordered by worstFirst
+     * @param offspring SalesmanGenome[] scratch genomes for the children of one step
+     * @param timed boolean true to measure the phases
+     * @return long time spent on selection
+     */
+    private long steadyStateGeneration(List<SalesmanGenome> population, SalesmanGenome[] offspring, boolean timed){
+        int steps = Math.max(1, generationSize / offspring.length);
+        int[] position = positionScratch[0];
+        long selectionTime = 0, crossoverTime = 0, evaluationTime = 0, mutationTime = 0;
+        if (selectionType == SelectionType.ROULETTE) buildRouletteTable(population);
+        for (int step = 0; step < steps; step++) {
+            // Breed every child of the step first, so they all come from the same population
+            for (int child = 0; child < offspring.length; child += 2) {
+                long started = timed ? System.nanoTime() : 0;
+                SalesmanGenome parent1 = selectParent(population), parent2 = selectParent(population);
+                long selected = timed ? System.nanoTime() : 0;
+                SalesmanGenome child1 = offspring[child], child2 = offspring[child + 1];
+                crossoverInto(parent1, parent2, child1, child2, position, random);
+                long crossed = timed ? System.nanoTime() : 0;
+                child1.updateFitness();
+                child2.updateFitness();
+                long evaluated = timed ? System.nanoTime() : 0;
+                mutate(child1, random);
+                mutate(child2, random);
+                // A copy of a parent would only crowd the population with clones
+                if (sameTour(child1, parent1) || sameTour(child1, parent2)) child1.fitness = Integer.MAX_VALUE;
+                if (sameTour(child2, parent1) || sameTour(child2, parent2)) child2.fitness = Integer.MAX_VALUE;
+                if (timed) {
+                    long mutated = System.nanoTime();
+                    selectionTime += selected - started;
+                    crossoverTime += crossed - selected;
+                    evaluationTime += evaluated - crossed;
+                    mutationTime += mutated - evaluated;
+                }
+            }
+            for (SalesmanGenome child : offspring) replaceWorst(population, child);
+        }
+        if (timed) {
+            crossoverNanos.add(crossoverTime);
+            evaluationNanos.add(evaluationTime);
+            mutationNanos.add(mutationTime);
+        }
+        return selectionTime;
+    }
+
+    private SalesmanGenome selectParent(List<SalesmanGenome> population){
+        return selectionType == SelectionType.ROULETTE ? spinRoulette(population) : tournamentSelection(population);
+    }
+
+    private static boolean sameTour(SalesmanGenome a, SalesmanGenome b){
+        return a.getFitness() == b.getFitness() && Arrays.equals(a.getPath(), b.getPath());
+    }
+
+    // Overwrites the worst genome with the child if the child is better, keeping the heap in order.
+    private void replaceWorst(List<SalesmanGenome> population, SalesmanGenome child){
+        SalesmanGenome worst = population.get(worstFirst[0]);
+        if (child.getFitness() >= worst.getFitness()) return;
+        worst.copyFrom(child);
+        siftDown(population, 0);
+    }
+
+    // Orders all slots of the population as a max-heap on fitness, O(n).
+    private void heapify(List<SalesmanGenome> population){
+        if (worstFirst.length != population.size()) worstFirst = new int[population.size()];
+        for (int i = 0; i < worstFirst.length; i++) worstFirst[i] = i;
+        for (int i = worstFirst.length / 2 - 1; i >= 0; i--) siftDown(population, i);
+    }
+
+    // Moves the slot at heap index i down until both children are no worse than it.
+    private void siftDown(List<SalesmanGenome> population, int i){
+        int slot = worstFirst[i];
+        int fitness = population.get(slot).getFitness();
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= worstFirst.length) break;
+            if (child + 1 < worstFirst.length
+                    && population.get(worstFirst[child + 1]).getFitness() > population.get(worstFirst[child]).getFitness())
+                child++;
+            if (population.get(worstFirst[child]).getFitness() <= fitness) break;
+            worstFirst[i] = worstFirst[child];
+            i = child;
+        }
+        worstFirst[i] = slot;
+    }
+
+    // A genome of the right size whose path is overwritten before it is used.
+    private SalesmanGenome blankGenome(SalesmanGenome template){
+        return new SalesmanGenome(template.getPath().clone(), numberOfCities, travelPrices, startingCity);
+    }
+
+    // Number of chunks needed to cover 'items' work items.
+    private static int chunkCount(int items){
+        return (items + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    // One independent random stream per chunk, split in chunk order from the main stream.
+    private SplittableRandom[] splitStreams(int chunks){
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+        for (int i = 0; i < chunks; i++) {
+            streams[i] = random.split();
+        }
+        return streams;
+    }
+
+    // Runs body for every chunk, on the worker pool while optimize() is running.
+    private void forEachChunk(int chunks, IntConsumer body){
+        if (pool == null) {
+            for (int i = 0; i < chunks; i++) body.accept(i);
+        } else {
+            IntConsumer task = body;
+            if (THREADS != null && collectMetrics()) {
+                // Allocation of the calling thread is measured by optimize() itself
+                task = chunk -> {
+                    boolean worker = Thread.currentThread() instanceof ForkJoinWorkerThread;
+                    long before = worker ? allocatedBytes() : 0;
+                    body.accept(chunk);
+                    if (worker) workerAllocatedBytes.add(allocatedBytes() - before);
+                };
+            }
+            pool.invoke(new ChunkTask(task, 0, chunks));
+        }
+    }
+
+    // Splits a range of chunks in halves down to single chunks, like the layer tasks of the DP solver.
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer body;
+        private final int from, to;
+
+        ChunkTask(IntConsumer body, int from, int to){
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from <= 1) {
+                if (from < to) body.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(body, from, mid), new ChunkTask(body, mid, to));
         }
-        return generation;
+    }
+
+    // The JVM's per-thread allocation counter, null if it is not available.
+    private static com.sun.management.ThreadMXBean allocationCounter(){
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) return counter;
+        }
+        return null;
+    }
+
+    // Bytes allocated so far by the calling thread, -1 if the JVM does not count them.
+    private static long allocatedBytes(){
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
     }
 
     /**
@@ -186,52 +725,272 @@ public class Ubermensch {
      * @return List an arraylist of SalesmanGenome Objects
      */
     public List<SalesmanGenome> crossover(List<SalesmanGenome> parents){
+        return crossover(parents, random);
+    }
+
+    /**
+     * crossover using the given random stream, so it can run on a worker thread
+     * @param parents List
+     * @param random SplittableRandom stream owned by the calling thread
+     * @return List an arraylist of SalesmanGenome Objects
+     */
+    public List<SalesmanGenome> crossover(List<SalesmanGenome> parents, SplittableRandom random){
+        List<SalesmanGenome> children = new ArrayList<>();
+        children.add(blankGenome(parents.get(0)));
+        children.add(blankGenome(parents.get(1)));
+        crossoverInto(parents.get(0), parents.get(1), children.get(0), children.get(1), new int[numberOfCities], random);
+        children.get(0).updateFitness();
+        children.get(1).updateFitness();
+        return children;
+    }
+
+    /**
+     * PMX crossover writing the two children into existing genomes. Only the paths
+     * are written, the caller has to update the fitness of both children.
+     * 'position' maps every city to its slot in the child being built, so finding
+     * the value to swap is O(1) and each child is built in linear time
+     * @param parent1 SalesmanGenome
+     * @param parent2 SalesmanGenome
+     * @param child1 SalesmanGenome overwritten with the first child
+     * @param child2 SalesmanGenome overwritten with the second child
+     * @param position int[] scratch index of size numberOfCities, owned by the calling thread
+     * @param random SplittableRandom stream owned by the calling thread
+     */
+    private void crossoverInto(SalesmanGenome parent1, SalesmanGenome parent2, SalesmanGenome child1, SalesmanGenome child2, int[] position, SplittableRandom random){
         // housekeeping
-        Random random = new Random();
         int breakpoint = random.nextInt(genomeSize);
-        List<SalesmanGenome> children = new ArrayList<>();
+        int[] parent1Genome = parent1.getPath();
+        int[] parent2Genome = parent2.getPath();
 
         // copy parental genomes - so that the program wouldn't modify in case they were
         // chosen to participate in crossover multiple times
-        List<Integer> parent1Genome = new ArrayList<>(parents.get(0).getGenome());
-        List<Integer> parent2Genome = new ArrayList<>(parents.get(1).getGenome());
+        int[] child1Genome = child1.getPath();
+        int[] child2Genome = child2.getPath();
+        System.arraycopy(parent1Genome, 0, child1Genome, 0, genomeSize);
+        System.arraycopy(parent2Genome, 0, child2Genome, 0, genomeSize);
 
         // creating child 1
+        indexPositions(child1Genome, position);
         for(int i = 0; i < breakpoint; i++){
-            int newVal;
-            newVal = parent2Genome.get(i);
-            Collections.swap(parent1Genome,parent1Genome.indexOf(newVal),i);
+            int newVal = parent2Genome[i];
+            swap(child1Genome, position, position[newVal], i);
         }
-        children.add(new SalesmanGenome(parent1Genome,numberOfCities,travelPrices,startingCity));
-        parent1Genome = parents.get(0).getGenome(); // resetting the edited parent
 
         // creating child 2
+        indexPositions(child2Genome, position);
         for(int i = breakpoint; i < genomeSize; i++){
-            int newVal = parent1Genome.get(i);
-            Collections.swap(parent2Genome, parent2Genome.indexOf(newVal), i);
+            int newVal = parent1Genome[i];
+            swap(child2Genome, position, position[newVal], i);
+        }
+    }
+
+    // Records the slot of every city of 'genome' in 'position'.
+    private static void indexPositions(int[] genome, int[] position){
+        for (int i = 0; i < genome.length; i++) {
+            position[genome[i]] = i;
         }
-        children.add(new SalesmanGenome(parent2Genome, numberOfCities, travelPrices, startingCity));
+    }
 
-        return children;
+    // Swaps two slots of 'genome' and keeps the position index in step.
+    private static void swap(int[] genome, int[] position, int i, int j){
+        int temp = genome[i];
+        genome[i] = genome[j];
+        genome[j] = temp;
+        position[genome[i]] = i;
+        position[genome[j]] = j;
+    }
+
+    /**
+     * TspSolver entry point: runs optimize() on a new population over another instance,
+     * with the settings of this one (selection, target fitness, parallelism, local search,
+     * steady state, generation limit, early stopping and construction seeding; not metrics or listeners).
+     * The local search stage is left out on asymmetric instances.
+     * The random streams of the new population are split from this one's, so a seeded
+     * Ubermensch gives reproducible results for the same sequence of calls
+     * @param travelPrices DistanceMatrix graph
+     * @param startingCity int starting node
+     * @return TspSolution best tour found
+     */
+    @Override
+    public TspSolution solve(DistanceMatrix travelPrices, int startingCity){
+        SplittableRandom stream;
+        synchronized (random) {
+            stream = random.split();
+        }
+        Ubermensch run = new Ubermensch(travelPrices.size(), selectionType, travelPrices, startingCity, targetFitness, stream, parallelism);
+        run.localSearchFrequency = travelPrices.isSymmetric() ? localSearchFrequency : 0;
+        run.localSearchElite = localSearchElite;
+        run.localSearchBudget = localSearchBudget;
+        if (travelPrices == this.travelPrices) run.neighborLists = neighborLists;
+        run.maxIterations = maxIterations;
+        run.steadyStateOffspring = steadyStateOffspring;
+        run.stagnationLimit = stagnationLimit;
+        run.diversityThreshold = diversityThreshold;
+        run.constructionShare = constructionShare;
+        SalesmanGenome best = run.optimize();
+        List<Integer> tour = new ArrayList<>();
+        tour.add(startingCity);
+        tour.addAll(best.getGenome());
+        tour.add(startingCity);
+        return new TspSolution(tour, best.getFitness());
     }
 
     /**
      * This method will terminate under following conditions:
      * #1: The number of generations has reached maxIterations
      * #2: The best genome's path is lower than the target path length
+     * #3: The best genome has not improved for stagnationLimit generations
+     * #4: The diversity of a generation is below diversityThreshold
      * @return SalesmanGenome the best/minimum path
      */
     public SalesmanGenome optimize(){
-        List<SalesmanGenome> population = initialPopulation();
-        SalesmanGenome globalBestGenome = population.get(0);
-        for(int i = 0; i < maxIterations; i++){
-            List<SalesmanGenome> selected = selection(population);
-            population = createGeneration(selected);
-            globalBestGenome = Collections.min(population);
-            if(globalBestGenome.getFitness() < targetFitness)
-                break;
-        }
-        return globalBestGenome;
+        if (parallelism > 1) pool = new ForkJoinPool(parallelism);
+        if (localSearchFrequency > 0) {
+            if (neighborLists == null) neighborLists = NeighborLists.of(travelPrices, CANDIDATES_PER_CITY);
+            if (localSearch == null) {
+                NeighborLists candidates = neighborLists;
+                localSearch = ThreadLocal.withInitial(() -> new LocalSearch(travelPrices, candidates));
+            }
+        }
+        try {
+            // Two pools of genomes take turns as the current and the next generation,
+            // so once they are filled the loop below allocates no genomes.
+            // The steady-state mode changes the current pool in place and needs no second one
+            boolean steadyState = steadyStateOffspring > 0;
+            List<SalesmanGenome> initial = initialPopulation();
+            SalesmanGenome[] current = new SalesmanGenome[arenaSize()];
+            SalesmanGenome[] next = new SalesmanGenome[steadyState ? 0 : current.length];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = i < initial.size() ? initial.get(i) : blankGenome(initial.get(0));
+            }
+            for (int i = 0; i < next.length; i++) {
+                next[i] = blankGenome(initial.get(0));
+            }
+            SalesmanGenome[] offspring = new SalesmanGenome[steadyStateOffspring];
+            for (int i = 0; i < offspring.length; i++) {
+                offspring[i] = blankGenome(initial.get(0));
+            }
+            List<SalesmanGenome> population = Arrays.asList(current);
+            List<SalesmanGenome> nextPopulation = Arrays.asList(next);
+            List<SalesmanGenome> selected = new ArrayList<>(reproductionSize);
+            if (steadyState) {
+                if (positionScratch.length == 0) positionScratch = new int[1][numberOfCities];
+                heapify(population);
+            }
+            // Kept outside the pools, which are overwritten every generation
+            SalesmanGenome globalBestGenome = blankGenome(initial.get(0));
+            globalBestGenome.copyFrom(Collections.min(population));
+            metrics = new ArrayList<>();
+            int stagnantGenerations = 0;
+            for(int i = 0; i < maxIterations; i++){
+                boolean measured = collectMetrics();
+                long allocationStart = measured ? allocatedBytes() : 0;
+                long selectionTime;
+                if (steadyState) {
+                    selectionTime = steadyStateGeneration(population, offspring, measured);
+                } else {
+                    long selectionStart = measured ? System.nanoTime() : 0;
+                    selectInto(population, selected);
+                    selectionTime = measured ? System.nanoTime() - selectionStart : 0;
+                    createGenerationInto(selected, next);
+                    SalesmanGenome[] swapArena = current;
+                    current = next;
+                    next = swapArena;
+                    List<SalesmanGenome> swapView = population;
+                    population = nextPopulation;
+                    nextPopulation = swapView;
+                }
+                if (localSearchFrequency > 0 && (i + 1) % localSearchFrequency == 0) {
+                    long searchStart = measured ? System.nanoTime() : 0;
+                    improveElite(current);
+                    // Local search changed fitness values in place
+                    if (steadyState) heapify(population);
+                    if (measured) evaluationNanos.add(System.nanoTime() - searchStart);
+                }
+                if (generationHook != null) {
+                    generationHook.afterGeneration(i + 1, current);
+                    if (steadyState) heapify(population);
+                }
+
+                SalesmanGenome generationBest = Collections.min(population);
+                if (generationBest.getFitness() < globalBestGenome.getFitness()) {
+                    globalBestGenome.copyFrom(generationBest);
+                    stagnantGenerations = 0;
+                } else {
+                    stagnantGenerations++;
+                }
+                double diversity = measured || diversityThreshold > 0 ? diversity(current) : 1;
+                if (measured) {
+                    recordMetrics(i + 1, current, generationBest.getFitness(), globalBestGenome.getFitness(),
+                            diversity, selectionTime, allocationStart);
+                }
+                if(globalBestGenome.getFitness() < targetFitness)
+                    break;
+                if (stagnationLimit > 0 && stagnantGenerations >= stagnationLimit)
+                    break;
+                if (diversity < diversityThreshold)
+                    break;
+            }
+            return globalBestGenome;
+        } finally {
+            if (pool != null) pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Memetic step: runs local search on the localSearchElite best genomes of a generation,
+     * one genome per task, each worker thread with its own LocalSearch scratch space
+     * @param generation SalesmanGenome[] current generation, improved in place
+     */
+    private void improveElite(SalesmanGenome[] generation){
+        int count = localSearchElite;
+        if (count == 0) return;
+        if (count < generation.length) {
+            if (ranked.length != generation.length) ranked = new SalesmanGenome[generation.length];
+            System.arraycopy(generation, 0, ranked, 0, generation.length);
+            Arrays.sort(ranked);
+        } else {
+            ranked = generation;
+        }
+        SalesmanGenome[] elite = ranked;
+        forEachChunk(Math.min(count, elite.length), i -> localSearch.get().improve(elite[i], localSearchBudget));
+    }
+
+    /**
+     * Share of distinct tours in a generation; 1 when every genome is different,
+     * close to 0 once the population has collapsed onto a few tours. Tours are
+     * compared by a 64-bit hash of their path
+     * @param generation SalesmanGenome[]
+     * @return double distinct tours divided by the population size
+     */
+    private double diversity(SalesmanGenome[] generation){
+        if (pathHashes.length != generation.length) pathHashes = new long[generation.length];
+        for (int i = 0; i < generation.length; i++) {
+            long hash = 1125899906842597L;
+            for (int city : generation[i].getPath()) hash = 31 * hash + city;
+            pathHashes[i] = hash;
+        }
+        Arrays.sort(pathHashes);
+        int distinct = 1;
+        for (int i = 1; i < pathHashes.length; i++) {
+            if (pathHashes[i] != pathHashes[i - 1]) distinct++;
+        }
+        return (double) distinct / generation.length;
+    }
+
+    // Builds the metrics of a finished generation, stores them and passes them to the listener.
+    private void recordMetrics(int generationNumber, SalesmanGenome[] generation, int bestFitness, int globalBestFitness,
+                               double diversity, long selectionTime, long allocationStart){
+        long fitnessSum = 0;
+        for (SalesmanGenome genome : generation) fitnessSum += genome.getFitness();
+        long allocated = allocationStart < 0 ? -1
+                : allocatedBytes() - allocationStart + workerAllocatedBytes.sumThenReset();
+        GenerationMetrics generationMetrics = new GenerationMetrics(generationNumber, bestFitness, globalBestFitness,
+                (double) fitnessSum / generation.length, diversity, selectionTime, crossoverNanos.sumThenReset(),
+                mutationNanos.sumThenReset(), evaluationNanos.sumThenReset(), allocated);
+        metrics.add(generationMetrics);
+        if (generationListener != null) generationListener.accept(generationMetrics);
     }
 
     public void printGeneration(List<SalesmanGenome> generation){
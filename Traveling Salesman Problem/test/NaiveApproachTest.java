@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression checks of the parallel brute force: unranking agrees with the
+ * lexicographic walk it starts, and the rank ranges, with and without the
+ * mirror-free halving, find the same optimum as the dynamic programming solver.
+ */
+class NaiveApproachTest {
+
+    @Test
+    void everyRankMatchesLexicographicWalk() {
+        int[] sorted = {1, 3, 4, 7, 9, 12};
+        int[] walked = sorted.clone();
+        int[] reused = new int[sorted.length];
+        long count = NaiveApproach.factorial(sorted.length);
+        for (long rank = 0; rank < count; rank++) {
+            assertArrayEquals(walked, NaiveApproach.unrankPermutation(sorted, rank), "rank " + rank);
+            NaiveApproach.unrankPermutation(sorted, rank, reused);
+            assertArrayEquals(walked, reused, "rank " + rank + " into a reused array");
+            int[] inPlace = sorted.clone();
+            NaiveApproach.unrankPermutation(inPlace, rank, inPlace);
+            assertArrayEquals(walked, inPlace, "rank " + rank + " in place");
+            assertEquals(rank < count - 1, NaiveApproach.findNextPermutation(walked));
+        }
+        assertArrayEquals(new int[] {1, 3, 4, 7, 9, 12}, sorted);
+    }
+
+    @Test
+    void symmetricRangesFindTheOptimum() {
+        for (long seed = 0; seed < 4; seed++) {
+            checkAgainstDynamicProgramming(random(9, true, seed), (int) seed, 1 + (int) seed % 3);
+        }
+    }
+
+    @Test
+    void asymmetricRangesFindTheOptimum() {
+        for (long seed = 0; seed < 4; seed++) {
+            checkAgainstDynamicProgramming(random(9, false, seed), (int) seed, 1 + (int) seed % 3);
+        }
+    }
+
+    private static void checkAgainstDynamicProgramming(int[][] graph, int start, int parallelism) {
+        int n = graph.length;
+        NaiveApproach naive = new NaiveApproach();
+        int cost = naive.naiveApproachTSPParallel(graph, start, n, parallelism);
+        assertEquals(new DynamicProgrammingApproach(start, graph).getTourCost(), cost);
+
+        List<Integer> tour = naive.getTour();
+        assertEquals(n + 1, tour.size());
+        assertEquals(start, tour.get(0));
+        assertEquals(start, tour.get(n));
+        boolean[] seen = new boolean[n];
+        int walked = 0;
+        for (int i = 0; i < n; i++) {
+            assertFalse(seen[tour.get(i)], "city " + tour.get(i) + " visited twice");
+            seen[tour.get(i)] = true;
+            walked += graph[tour.get(i)][tour.get(i + 1)];
+        }
+        assertEquals(cost, walked);
+    }
+
+    private static int[][] random(int n, boolean symmetric, long seed) {
+        Random random = new Random(seed);
+        int[][] graph = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) graph[i][j] = 1 + random.nextInt(1_000);
+            }
+        }
+        if (symmetric) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < i; j++) graph[j][i] = graph[i][j];
+            }
+        }
+        return graph;
+    }
+}
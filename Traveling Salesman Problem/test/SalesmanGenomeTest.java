@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression checks of the delta fitness of swap, 2-opt reversal and insertion
+ * moves: every delta equals the change of a full recomputation, on symmetric
+ * and asymmetric prices, for every pair of slots including the path ends.
+ */
+class SalesmanGenomeTest {
+    private static final int CITIES = 9;
+
+    @Test
+    void symmetricDeltas() {
+        for (long seed = 0; seed < 5; seed++) {
+            checkEveryMove(random(CITIES, true, seed), (int) seed);
+        }
+    }
+
+    @Test
+    void asymmetricDeltas() {
+        for (long seed = 0; seed < 5; seed++) {
+            checkEveryMove(random(CITIES, false, seed), (int) seed);
+        }
+    }
+
+    @Test
+    void chainedMovesKeepFitnessInStep() {
+        int[][] prices = random(CITIES, false, 9);
+        SplittableRandom random = new SplittableRandom(9);
+        SalesmanGenome genome = new SalesmanGenome(CITIES, prices, 4, random);
+        for (int step = 0; step < 10_000; step++) {
+            int i = random.nextInt(CITIES - 1), j = random.nextInt(CITIES - 1);
+            switch (step % 3) {
+                case 0: genome.swap(i, j); break;
+                case 1: genome.reverse(i, j); break;
+                default: genome.move(i, j); break;
+            }
+        }
+        assertEquals(genome.calculateFitness(), genome.getFitness());
+    }
+
+    private static void checkEveryMove(int[][] prices, int start) {
+        SalesmanGenome template = new SalesmanGenome(CITIES, prices, start, new SplittableRandom(start));
+        int slots = CITIES - 1;
+        for (int i = 0; i < slots; i++) {
+            for (int j = 0; j < slots; j++) {
+                String where = "slots " + i + ", " + j + " from start " + start;
+
+                SalesmanGenome swapped = copy(template, prices, start);
+                int swapDelta = swapped.swapDelta(i, j);
+                swapped.swap(i, j);
+                List<Integer> expected = new ArrayList<>(template.getGenome());
+                Collections.swap(expected, i, j);
+                checkMove("swap " + where, template, swapped, swapDelta, expected);
+
+                SalesmanGenome reversed = copy(template, prices, start);
+                int reverseDelta = reversed.reverseDelta(i, j);
+                reversed.reverse(i, j);
+                expected = new ArrayList<>(template.getGenome());
+                Collections.reverse(expected.subList(Math.min(i, j), Math.max(i, j) + 1));
+                checkMove("reverse " + where, template, reversed, reverseDelta, expected);
+
+                SalesmanGenome moved = copy(template, prices, start);
+                int moveDelta = moved.moveDelta(i, j);
+                moved.move(i, j);
+                expected = new ArrayList<>(template.getGenome());
+                expected.add(j, expected.remove(i));
+                checkMove("move " + where, template, moved, moveDelta, expected);
+            }
+        }
+    }
+
+    private static void checkMove(String move, SalesmanGenome before, SalesmanGenome after, int delta, List<Integer> expected) {
+        assertEquals(expected, new ArrayList<>(after.getGenome()), move);
+        assertEquals(after.calculateFitness() - before.getFitness(), delta, move);
+        assertEquals(after.calculateFitness(), after.getFitness(), move);
+    }
+
+    private static SalesmanGenome copy(SalesmanGenome genome, int[][] prices, int start) {
+        return new SalesmanGenome(genome.getPath().clone(), CITIES, prices, start);
+    }
+
+    private static int[][] random(int n, boolean symmetric, long seed) {
+        Random random = new Random(seed);
+        int[][] prices = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) prices[i][j] = 1 + random.nextInt(1_000);
+            }
+        }
+        if (symmetric) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < i; j++) prices[j][i] = prices[i][j];
+            }
+        }
+        return prices;
+    }
+}
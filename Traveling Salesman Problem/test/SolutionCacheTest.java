@@ -0,0 +1,150 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Regression checks of SolutionCache's relabelling normalization: a renumbered
+ * instance hits, an instance whose canonical order is ambiguous falls back to
+ * its given numbering, and entries survive a save/load round trip.
+ */
+class SolutionCacheTest {
+    private static final int CITIES = 8;
+
+    private final AtomicInteger solverCalls = new AtomicInteger();
+    private final TspSolver countingSolver = (travelPrices, startingCity) -> {
+        solverCalls.incrementAndGet();
+        return new NaiveApproach().solve(travelPrices, startingCity);
+    };
+
+    @Test
+    void relabelledInstanceHits() {
+        int[][] prices = randomSymmetric(CITIES, 1);
+        int[] relabelling = shuffled(CITIES, 2);
+        SolutionCache cache = new SolutionCache(16, 1 << 20, true);
+
+        TspSolution solved = cache.computeIfAbsent(DistanceMatrix.wrap(prices), 3, countingSolver);
+        int[][] renumbered = relabel(prices, relabelling);
+        TspSolution hit = cache.computeIfAbsent(DistanceMatrix.wrap(renumbered), relabelling[3], countingSolver);
+
+        assertEquals(1, solverCalls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(solved.getCost(), hit.getCost());
+        assertValidTour(renumbered, relabelling[3], hit);
+    }
+
+    @Test
+    void tiedSignaturesFallBackToGivenNumbering() {
+        // Cities 2 and 5 are twins: same prices to every other city, so their sorted rows tie
+        int[][] prices = randomSymmetric(CITIES, 3);
+        for (int other = 0; other < CITIES; other++) {
+            if (other == 2 || other == 5) continue;
+            prices[5][other] = prices[2][other];
+            prices[other][5] = prices[other][2];
+        }
+        SolutionCache cache = new SolutionCache(16, 1 << 20, true);
+        cache.computeIfAbsent(DistanceMatrix.wrap(prices), 0, countingSolver);
+
+        TspSolution same = cache.get(DistanceMatrix.of(prices), 0);
+        assertNotNull(same);
+        assertValidTour(prices, 0, same);
+
+        // Keyed as given, so the same instance numbered differently is a miss and not a wrong hit
+        int[] relabelling = shuffled(CITIES, 4);
+        int[][] renumbered = relabel(prices, relabelling);
+        assertNull(cache.get(DistanceMatrix.wrap(renumbered), relabelling[0]));
+        TspSolution solved = cache.computeIfAbsent(DistanceMatrix.wrap(renumbered), relabelling[0], countingSolver);
+        assertValidTour(renumbered, relabelling[0], solved);
+        assertEquals(2, solverCalls.get());
+    }
+
+    @Test
+    void saveAndLoadRoundTrip(@TempDir Path directory) {
+        int[][] first = randomSymmetric(CITIES, 5);
+        int[][] second = randomSymmetric(CITIES, 6);
+        SolutionCache cache = new SolutionCache(16, 1 << 20, true);
+        TspSolution firstSolved = cache.computeIfAbsent(DistanceMatrix.wrap(first), 0, countingSolver);
+        TspSolution secondSolved = cache.computeIfAbsent(DistanceMatrix.wrap(second), 2, countingSolver);
+        Path file = directory.resolve("solutions.bin");
+        cache.save(file);
+
+        SolutionCache loaded = new SolutionCache(16, 1 << 20, true);
+        assertEquals(2, loaded.load(file));
+        assertEquals(2, loaded.size());
+
+        // Loaded keys carry no city order, the tour is decoded through the order of the new lookup
+        int[] relabelling = shuffled(CITIES, 7);
+        int[][] renumbered = relabel(first, relabelling);
+        TspSolution hit = loaded.computeIfAbsent(DistanceMatrix.wrap(renumbered), relabelling[0], countingSolver);
+        assertEquals(firstSolved.getCost(), hit.getCost());
+        assertValidTour(renumbered, relabelling[0], hit);
+        TspSolution secondHit = loaded.get(DistanceMatrix.wrap(second), 2);
+        assertNotNull(secondHit);
+        assertEquals(secondSolved.getTour(), secondHit.getTour());
+        assertEquals(2, solverCalls.get());
+
+        SolutionCache plain = new SolutionCache(16, 1 << 20, false);
+        assertThrows(IllegalArgumentException.class, () -> plain.load(file));
+    }
+
+    // Distinct random prices, so the sorted rows of different cities differ.
+    private static int[][] randomSymmetric(int n, long seed) {
+        Random random = new Random(seed);
+        int[][] prices = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                prices[i][j] = prices[j][i] = 10 + random.nextInt(10_000);
+            }
+        }
+        return prices;
+    }
+
+    private static int[] shuffled(int n, long seed) {
+        Random random = new Random(seed);
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) permutation[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = temp;
+        }
+        return permutation;
+    }
+
+    // City c of prices becomes city relabelling[c] of the result.
+    private static int[][] relabel(int[][] prices, int[] relabelling) {
+        int n = prices.length;
+        int[][] renumbered = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                renumbered[relabelling[i]][relabelling[j]] = prices[i][j];
+            }
+        }
+        return renumbered;
+    }
+
+    private static void assertValidTour(int[][] prices, int start, TspSolution solution) {
+        List<Integer> tour = solution.getTour();
+        int n = prices.length;
+        assertEquals(n + 1, tour.size());
+        assertEquals(start, tour.get(0));
+        assertEquals(start, tour.get(n));
+        boolean[] seen = new boolean[n];
+        int cost = 0;
+        for (int i = 0; i < n; i++) {
+            assertFalse(seen[tour.get(i)], "city " + tour.get(i) + " visited twice");
+            seen[tour.get(i)] = true;
+            cost += prices[tour.get(i)][tour.get(i + 1)];
+        }
+        assertEquals(solution.getCost(), cost);
+    }
+}
@@ -0,0 +1,155 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Regression checks of TsplibReader: every EXPLICIT format gives back the matrix
+ * it was written from, the hand-written number parser agrees with Double.parseDouble,
+ * and malformed numbers at the end of the file are rejected instead of misread.
+ */
+class TsplibReaderTest {
+    private static final int CITIES = 6;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fullMatrixKeepsAsymmetricPrices() {
+        int[][] prices = random(CITIES, false, 1);
+        StringBuilder section = new StringBuilder();
+        for (int[] row : prices) {
+            for (int price : row) section.append(' ').append(price);
+            section.append('\n');
+        }
+        DistanceMatrix read = TsplibReader.read(write(explicit("FULL_MATRIX", section)));
+        assertMatrix(prices, read);
+        assertFalse(read.isSymmetric());
+    }
+
+    @Test
+    void triangularFormatsGiveTheSameMatrix() {
+        int[][] prices = random(CITIES, true, 2);
+        String[] formats = {"UPPER_ROW", "UPPER_DIAG_ROW", "LOWER_ROW", "LOWER_DIAG_ROW"};
+        for (String format : formats) {
+            StringBuilder section = new StringBuilder();
+            for (int i = 0; i < CITIES; i++) {
+                int first = format.startsWith("UPPER") ? (format.contains("DIAG") ? i : i + 1) : 0;
+                int last = format.startsWith("UPPER") ? CITIES - 1 : (format.contains("DIAG") ? i : i - 1);
+                // Rows are not required to start on a new line
+                for (int j = first; j <= last; j++) section.append(prices[i][j]).append(j % 4 == 0 ? '\n' : ' ');
+            }
+            DistanceMatrix read = TsplibReader.read(write(explicit(format, section)));
+            assertMatrix(prices, read);
+            assertTrue(read.isSymmetric(), format);
+        }
+    }
+
+    @Test
+    void integralPricesMayBeWrittenAsDecimals() {
+        String section = "0 12.0 1e2\n+7 0 1.5E+1\n300e-1 -0 0\n";
+        DistanceMatrix read = TsplibReader.read(write(header(3, "EXPLICIT", "FULL_MATRIX") + "EDGE_WEIGHT_SECTION\n" + section));
+        assertMatrix(new int[][] {{0, 12, 100}, {7, 0, 15}, {30, 0, 0}}, read);
+    }
+
+    @Test
+    void coordinatesParseLikeDoubleParseDouble() {
+        Random random = new Random(3);
+        List<String> numbers = new ArrayList<>(List.of(
+                "0", "-0.0", "+5", "1.", ".5", "007.250", "1e3", "1E-3", "2.5e+2", "-6.02214076E23",
+                "3.14159265358979323846", "123456789012345678901234", "0.000000000000000000000000123"));
+        for (int i = 0; i < 200; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+            numbers.add(Double.toString(value));
+            numbers.add(String.format("%.6f", value));
+        }
+        if (numbers.size() % 2 == 1) numbers.add("42");
+        int nodes = numbers.size() / 2;
+        StringBuilder file = new StringBuilder(header(nodes, "EUC_2D", null)).append("NODE_COORD_SECTION\n");
+        for (int node = 0; node < nodes; node++) {
+            file.append(node + 1).append(' ').append(numbers.get(2 * node)).append('\t').append(numbers.get(2 * node + 1)).append('\n');
+        }
+        file.append("EOF\n");
+
+        CoordinateDistanceMatrix read = (CoordinateDistanceMatrix) TsplibReader.read(write(file.toString()));
+        for (int node = 0; node < nodes; node++) {
+            assertEquals(Double.parseDouble(numbers.get(2 * node)), read.getX(node), numbers.get(2 * node));
+            assertEquals(Double.parseDouble(numbers.get(2 * node + 1)), read.getY(node), numbers.get(2 * node + 1));
+        }
+    }
+
+    @Test
+    void exponentWithoutDigitsIsRejected() {
+        String coordinates = header(2, "EUC_2D", null) + "NODE_COORD_SECTION\n1 0 0\n2 1 ";
+        for (String last : new String[] {"1e", "1e ", "1e\n", "1e+", "1E-\n"}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> TsplibReader.read(write(coordinates + last)), last);
+            assertTrue(e.getMessage().startsWith("Number expected"), e.getMessage());
+        }
+        String prices = header(2, "EXPLICIT", "FULL_MATRIX") + "EDGE_WEIGHT_SECTION\n0 1 1 2e";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> TsplibReader.read(write(prices)));
+        assertTrue(e.getMessage().startsWith("Number expected"), e.getMessage());
+    }
+
+    @Test
+    void signAtTheEndOfTheFileIsRejected() {
+        String prices = header(2, "EXPLICIT", "FULL_MATRIX") + "EDGE_WEIGHT_SECTION\n0 1 1 -";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> TsplibReader.read(write(prices)));
+        assertTrue(e.getMessage().startsWith("Number expected"), e.getMessage());
+    }
+
+    private static String header(int dimension, String type, String format) {
+        return "NAME : test\nTYPE : TSP\nDIMENSION : " + dimension + "\nEDGE_WEIGHT_TYPE : " + type + "\n"
+                + (format == null ? "" : "EDGE_WEIGHT_FORMAT : " + format + "\n");
+    }
+
+    private static String explicit(String format, CharSequence section) {
+        return header(CITIES, "EXPLICIT", format) + "EDGE_WEIGHT_SECTION\n" + section + "EOF\n";
+    }
+
+    private Path write(String contents) {
+        try {
+            Path file = Files.createTempFile(directory, "instance", ".tsp");
+            Files.write(file, contents.getBytes(StandardCharsets.US_ASCII));
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void assertMatrix(int[][] expected, DistanceMatrix read) {
+        assertEquals(expected.length, read.size());
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(expected[i][j], read.get(i, j), "price " + i + " -> " + j);
+            }
+        }
+    }
+
+    private static int[][] random(int n, boolean symmetric, long seed) {
+        Random random = new Random(seed);
+        int[][] prices = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) prices[i][j] = 1 + random.nextInt(1_000);
+            }
+        }
+        if (symmetric) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < i; j++) prices[j][i] = prices[i][j];
+            }
+        }
+        return prices;
+    }
+}
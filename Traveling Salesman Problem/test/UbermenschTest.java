@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression check of the array-based PMX crossover against the List-based
+ * version it replaced: both children agree for every breakpoint.
+ */
+class UbermenschTest {
+
+    @Test
+    void crossoverMatchesListBasedPmx() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 300; trial++) {
+            int cities = 3 + random.nextInt(30);
+            int start = random.nextInt(cities);
+            int[][] prices = Main.getMatrix(cities);
+            Ubermensch ubermensch = new Ubermensch(cities, SelectionType.TOURNAMENT, prices, start, 0, trial, 1);
+            SalesmanGenome parent1 = new SalesmanGenome(shuffledPath(cities, start, random), cities, prices, start);
+            SalesmanGenome parent2 = new SalesmanGenome(shuffledPath(cities, start, random), cities, prices, start);
+
+            List<SalesmanGenome> children = ubermensch.crossover(Arrays.asList(parent1, parent2), new SplittableRandom(trial));
+            // The crossover draws the breakpoint first, so the same stream reproduces it
+            int breakpoint = new SplittableRandom(trial).nextInt(cities - 1);
+            List<List<Integer>> expected = listPmx(parent1.getGenome(), parent2.getGenome(), breakpoint);
+
+            for (int child = 0; child < 2; child++) {
+                assertEquals(expected.get(child), new ArrayList<>(children.get(child).getGenome()),
+                        "trial " + trial + ", child " + (child + 1));
+                assertEquals(children.get(child).calculateFitness(), children.get(child).getFitness());
+            }
+        }
+    }
+
+    // The PMX of the List-based genome: indexOf finds the value to swap into place.
+    private static List<List<Integer>> listPmx(List<Integer> parent1, List<Integer> parent2, int breakpoint) {
+        List<Integer> child1 = new ArrayList<>(parent1);
+        List<Integer> child2 = new ArrayList<>(parent2);
+        for (int i = 0; i < breakpoint; i++) {
+            Collections.swap(child1, child1.indexOf(parent2.get(i)), i);
+        }
+        for (int i = breakpoint; i < parent1.size(); i++) {
+            Collections.swap(child2, child2.indexOf(parent1.get(i)), i);
+        }
+        return Arrays.asList(child1, child2);
+    }
+
+    private static int[] shuffledPath(int cities, int start, Random random) {
+        int[] path = new int[cities - 1];
+        for (int city = 0, k = 0; city < cities; city++) {
+            if (city != start) path[k++] = city;
+        }
+        for (int i = path.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = path[i];
+            path[i] = path[j];
+            path[j] = temp;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,27 @@
+import java.math.BigInteger;
+import java.util.HashMap;
+
+/**
+ * Implements benchmarks.FibonacciWorkloads on top of Main.
+ */
+public class FibonacciWorkloadBridge implements benchmarks.FibonacciWorkloads {
+    @Override
+    public BigInteger forLoop(BigInteger n) {
+        return Main.iterateFib(n);
+    }
+
+    @Override
+    public BigInteger plainRecursion(BigInteger n) {
+        return Main.recurFib(n);
+    }
+
+    @Override
+    public BigInteger tailRecursion(BigInteger n) {
+        return Main.tailRecurFib(n, BigInteger.ZERO, BigInteger.ONE);
+    }
+
+    @Override
+    public BigInteger memorization(BigInteger n) {
+        return Main.memorizeFib(n, new HashMap<>());
+    }
+}
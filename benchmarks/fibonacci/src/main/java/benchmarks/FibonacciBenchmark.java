@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The four Fibonacci methods of Main for one order each, without the printing the menu does.
+ * The memo starts empty on every invocation, otherwise memorization would only measure a lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FibonacciBenchmark {
+    // Plain recursion grows as 1.6^n, which keeps the sweep small
+    @Param({"10", "20", "25"})
+    public int order;
+
+    private BigInteger n;
+
+    @Setup
+    public void setUp() {
+        n = BigInteger.valueOf(order);
+    }
+
+    @Benchmark
+    public BigInteger forLoop() {
+        return FibonacciWorkloads.INSTANCE.forLoop(n);
+    }
+
+    @Benchmark
+    public BigInteger plainRecursion() {
+        return FibonacciWorkloads.INSTANCE.plainRecursion(n);
+    }
+
+    @Benchmark
+    public BigInteger tailRecursion() {
+        return FibonacciWorkloads.INSTANCE.tailRecursion(n);
+    }
+
+    @Benchmark
+    public BigInteger memorization() {
+        return FibonacciWorkloads.INSTANCE.memorization(n);
+    }
+}
@@ -0,0 +1,28 @@
+package benchmarks;
+
+import java.math.BigInteger;
+
+/**
+ * The four Fibonacci methods of the default-package Main, which named packages cannot
+ * import. A default-package class implements this interface and is loaded once by name.
+ */
+public interface FibonacciWorkloads {
+    FibonacciWorkloads INSTANCE = load();
+
+    BigInteger forLoop(BigInteger n);
+
+    BigInteger plainRecursion(BigInteger n);
+
+    BigInteger tailRecursion(BigInteger n);
+
+    // Starts from an empty memo on every call.
+    BigInteger memorization(BigInteger n);
+
+    private static FibonacciWorkloads load() {
+        try {
+            return (FibonacciWorkloads) Class.forName("FibonacciWorkloadBridge").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("FibonacciWorkloadBridge is missing from the class path.", e);
+        }
+    }
+}
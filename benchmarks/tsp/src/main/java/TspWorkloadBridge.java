@@ -0,0 +1,36 @@
+/**
+ * Implements benchmarks.TspWorkloads on top of the default-package solvers.
+ */
+public class TspWorkloadBridge implements benchmarks.TspWorkloads {
+    @Override
+    public int naive(int[][] graph) {
+        return new NaiveApproach().naiveApproachTSP(graph, 0, graph.length);
+    }
+
+    @Override
+    public int naiveParallel(int[][] graph, int parallelism) {
+        return new NaiveApproach().naiveApproachTSPParallel(graph, 0, graph.length, parallelism);
+    }
+
+    @Override
+    public int dynamicProgramming(int[][] graph, int parallelism) {
+        return new DynamicProgrammingApproach(0, graph, parallelism).getTourCost();
+    }
+
+    @Override
+    public GeneticAlgorithm geneticAlgorithm(int[][] graph, String selectionType, long seed) {
+        Ubermensch ubermensch = new Ubermensch(graph.length, SelectionType.valueOf(selectionType), graph, 0, 0, seed, 1);
+        return new GeneticAlgorithm() {
+            @Override
+            public Object initialPopulation() {
+                return ubermensch.initialPopulation();
+            }
+
+            @Override
+            public Object optimize(int generations) {
+                ubermensch.setMaxIterations(generations);
+                return ubermensch.optimize();
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * Reproducible instances for the benchmarks. Main.getMatrix() seeds from the clock,
+ * so it cannot be used where two runs must see the same cities.
+ */
+public class BenchmarkInstances {
+    public static final long SEED = 42;
+
+    /**
+     * Symmetric matrix with the same weight range as Main.getMatrix()
+     * @param vertices int number of vertices
+     * @param seed long seed of the weights
+     * @return int[][] graph
+     */
+    public static int[][] symmetricMatrix(int vertices, long seed) {
+        int[][] grid = new int[vertices][vertices];
+        int upperBound = 30;
+        int lowerBound = 10;
+        Random rand = new Random(seed);
+        for (int i = 0; i < vertices; i++) {
+            for (int j = 0; j < i; j++) {
+                int weight = lowerBound + rand.nextInt(upperBound - lowerBound + 1);
+                grid[i][j] = weight;
+                grid[j][i] = weight;
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,43 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Held-Karp dynamic programming, a new solver per invocation because it caches its solution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicProgrammingBenchmark {
+    @Param({"10", "13", "16"})
+    public int vertices;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private int[][] graph;
+
+    @Setup
+    public void setUp() {
+        graph = BenchmarkInstances.symmetricMatrix(vertices, BenchmarkInstances.SEED);
+    }
+
+    @Benchmark
+    public int solve() {
+        return TspWorkloads.INSTANCE.dynamicProgramming(graph, parallelism);
+    }
+}
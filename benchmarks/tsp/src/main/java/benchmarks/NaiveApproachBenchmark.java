@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Brute force over all (n - 1)! tours, on one thread and split over all cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NaiveApproachBenchmark {
+    @Param({"6", "8", "10"})
+    public int vertices;
+
+    private int[][] graph;
+
+    @Setup
+    public void setUp() {
+        graph = BenchmarkInstances.symmetricMatrix(vertices, BenchmarkInstances.SEED);
+    }
+
+    @Benchmark
+    public int sequential() {
+        return TspWorkloads.INSTANCE.naive(graph);
+    }
+
+    @Benchmark
+    public int parallel() {
+        return TspWorkloads.INSTANCE.naiveParallel(graph, Runtime.getRuntime().availableProcessors());
+    }
+}
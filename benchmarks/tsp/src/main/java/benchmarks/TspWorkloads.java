@@ -0,0 +1,62 @@
+package benchmarks;
+
+/**
+ * The solver calls the benchmarks measure. The solvers live in the default package,
+ * which named packages cannot import, so a default-package class implements this
+ * interface and is loaded once by name; the measured calls are plain interface calls.
+ */
+public interface TspWorkloads {
+    TspWorkloads INSTANCE = load();
+
+    /**
+     * @param graph int[][] graph
+     * @return int cost of the optimal tour from city 0
+     */
+    int naive(int[][] graph);
+
+    /**
+     * @param graph int[][] graph
+     * @param parallelism int number of worker threads
+     * @return int cost of the optimal tour from city 0
+     */
+    int naiveParallel(int[][] graph, int parallelism);
+
+    /**
+     * @param graph int[][] graph
+     * @param parallelism int number of worker threads
+     * @return int cost of the optimal tour from city 0
+     */
+    int dynamicProgramming(int[][] graph, int parallelism);
+
+    /**
+     * @param graph int[][] graph
+     * @param selectionType String ROULETTE or TOURNAMENT
+     * @param seed long seed of the random streams
+     * @return GeneticAlgorithm single-threaded population over the graph
+     */
+    GeneticAlgorithm geneticAlgorithm(int[][] graph, String selectionType, long seed);
+
+    // One Ubermensch with its settings.
+    interface GeneticAlgorithm {
+        /**
+         * @return Object a new random population
+         */
+        Object initialPopulation();
+
+        /**
+         * Runs optimize() for exactly the given number of generations, on the pooled
+         * generation buffers optimize() itself uses
+         * @param generations int number of generations
+         * @return Object the best genome found
+         */
+        Object optimize(int generations);
+    }
+
+    private static TspWorkloads load() {
+        try {
+            return (TspWorkloads) Class.forName("TspWorkloadBridge").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("TspWorkloadBridge is missing from the class path.", e);
+        }
+    }
+}
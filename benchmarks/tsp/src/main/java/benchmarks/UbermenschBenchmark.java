@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The genetic algorithm per generation rather than per optimize() run, whose length
+ * depends on when the population converges. generation() runs optimize() for a fixed
+ * number of generations, so it times the same pooled selection and crossover loop as
+ * a real run; each invocation also builds one initial population, which
+ * initialPopulation() measures on its own. Every invocation of generation() starts
+ * from a freshly seeded solver, so all of them evolve the same populations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UbermenschBenchmark {
+    private static final int GENERATIONS = 20;
+
+    @Param({"20", "50", "100"})
+    public int vertices;
+
+    @Param({"ROULETTE", "TOURNAMENT"})
+    public String selectionType;
+
+    private int[][] graph;
+    private TspWorkloads.GeneticAlgorithm geneticAlgorithm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = BenchmarkInstances.symmetricMatrix(vertices, BenchmarkInstances.SEED);
+        geneticAlgorithm = TspWorkloads.INSTANCE.geneticAlgorithm(graph, selectionType, BenchmarkInstances.SEED);
+    }
+
+    /**
+     * A solver built before every invocation. A generation() invocation takes
+     * milliseconds, so the untimed setup does not disturb the measurement.
+     */
+    @State(Scope.Thread)
+    public static class SeededRun {
+        TspWorkloads.GeneticAlgorithm geneticAlgorithm;
+
+        @Setup(Level.Invocation)
+        public void setUp(UbermenschBenchmark benchmark) {
+            geneticAlgorithm = TspWorkloads.INSTANCE.geneticAlgorithm(benchmark.graph, benchmark.selectionType, BenchmarkInstances.SEED);
+        }
+    }
+
+    @Benchmark
+    public Object initialPopulation() {
+        return geneticAlgorithm.initialPopulation();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GENERATIONS)
+    public Object generation(SeededRun run) {
+        return run.geneticAlgorithm.optimize(GENERATIONS);
+    }
+}